@@ -1,5 +1,6 @@
 plugins {
     alias(libs.plugins.android.application)
+    alias(libs.plugins.baselineprofile)
 }
 
 android {
@@ -15,7 +16,11 @@ android {
         versionCode = 1
         versionName = "1.0"
 
-        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        // The benchmark runner is a normal AndroidJUnitRunner that also handles BenchmarkRule.
+        testInstrumentationRunner = "androidx.benchmark.junit4.AndroidBenchmarkRunner"
+        // The microbenchmarks in androidTest run against the debug build. That makes their
+        // timings pessimistic, but what they check is allocation counts, which don't change.
+        testInstrumentationRunnerArguments["androidx.benchmark.suppressErrors"] = "DEBUGGABLE,EMULATOR"
     }
 
     buildTypes {
@@ -31,6 +36,13 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    androidResources {
+        // Keep the breached-password filter uncompressed so it can be memory-mapped from the APK.
+        noCompress += "bloom"
+    }
+    // The breached-password filter is committed in the passwordfilter module, along with the
+    // task that rebuilds it (see passwordfilter/build.gradle.kts).
+    sourceSets["main"].assets.srcDir(rootProject.file("passwordfilter/assets"))
 }
 
 dependencies {
@@ -39,7 +51,11 @@ dependencies {
     implementation(libs.activity)
     implementation(libs.constraintlayout)
     implementation("androidx.core:core-splashscreen:1.2.0") // Added for splash screen API
+    implementation(libs.profileinstaller) // Installs the baseline profile on devices without Play.
+    implementation(project(":passwordfilter"))
+    baselineProfile(project(":benchmark"))
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
+    androidTestImplementation(libs.benchmark.junit4)
 }
\ No newline at end of file
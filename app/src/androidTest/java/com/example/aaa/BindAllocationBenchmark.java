@@ -0,0 +1,166 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.os.Debug;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Microbenchmarks for binding list rows, which happens for every row that scrolls into view.
+ * Each one is paired with a copy of the way we used to do it, so the results show the before
+ * and after side by side. BenchmarkRule reports an allocation count per call next to the
+ * timings; look at "allocationCount" in the output.
+ *
+ * The text our rows show (prices, times, table labels) is built ahead of time, so handing it
+ * over while binding must not allocate at all. The labelBinds_allocateNothing test checks that
+ * directly, so it fails if someone brings formatting back into the bind.
+ *
+ * Run it on a device or emulator with:
+ * <pre>
+ *   ./gradlew :app:connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.example.aaa.BindAllocationBenchmark
+ * </pre>
+ */
+@RunWith(AndroidJUnit4.class)
+public class BindAllocationBenchmark {
+
+    private static final int ROWS = 50;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+    private MenuAdapter menuAdapter;
+    private MenuAdapter.MenuViewHolder menuHolder;
+    private Reservation[] reservations;
+    private final StringBuilder receipt = new StringBuilder(64); // Reused, like a receipt line would be.
+    private Object sink; // Somewhere to put results so the work can't be optimised away.
+
+    @Before
+    @UiThreadTest
+    public void setUp() {
+        context = new ContextThemeWrapper(InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                R.style.Theme_COMP2000);
+        List<MenuItem> items = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            items.add(new MenuItem("Dish " + i, 500 + i * 25L, R.drawable.ic_launcher_background));
+        }
+        menuAdapter = new MenuAdapter(context, item -> { });
+        menuAdapter.submitList(items); // The first list goes in straight away, no diffing.
+        menuHolder = menuAdapter.onCreateViewHolder(new FrameLayout(context), 0);
+
+        int slot = ReservationTime.toEpochMinute("2024-06-10", "18:00");
+        reservations = new Reservation[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            reservations[i] = new Reservation("Guest " + i, slot + i * 15, 1 + i % 30);
+        }
+    }
+
+    /**
+     * Everything a reservation row and a menu row take from DisplayLabels and Money while
+     * binding, done the way the adapters do it now.
+     */
+    private void bindLabels(int position) {
+        Reservation reservation = reservations[position];
+        sink = reservation.getDateTimeLabel();
+        sink = reservation.getTableLabel();
+        sink = DisplayLabels.table(reservation.getTableNumber());
+        sink = menuAdapter.getCurrentList().get(position).getPriceLabel();
+        receipt.setLength(0);
+        sink = Money.appendFormatted(receipt, 1250L + position);
+    }
+
+    @Test
+    public void labels_bind() {
+        BenchmarkState state = benchmarkRule.getState();
+        int position = 0;
+        while (state.keepRunning()) {
+            bindLabels(position);
+            position = (position + 1) % ROWS;
+        }
+    }
+
+    /**
+     * The same labels built the old way, with String.format and concatenation on every bind.
+     */
+    @Test
+    public void labels_bindTheOldWay() {
+        BenchmarkState state = benchmarkRule.getState();
+        int position = 0;
+        while (state.keepRunning()) {
+            Reservation reservation = reservations[position];
+            sink = String.format("%s %s", reservation.getDate(), reservation.getTime());
+            sink = "Table: " + reservation.getTableNumber();
+            sink = String.format("$%.2f", menuAdapter.getCurrentList().get(position).getPriceCents() / 100.0);
+            position = (position + 1) % ROWS;
+        }
+    }
+
+    /**
+     * The hard guarantee: binding the labels allocates nothing at all.
+     */
+    @Test
+    @SuppressWarnings("deprecation") // The per-thread allocation counters still work on ART.
+    public void labelBinds_allocateNothing() {
+        for (int i = 0; i < 10 * ROWS; i++) {
+            bindLabels(i % ROWS); // Warm up, so class loading and the JIT aren't counted.
+        }
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < 100 * ROWS; i++) {
+            bindLabels(i % ROWS);
+        }
+        Debug.stopAllocCounting();
+        assertEquals("Allocations while binding labels", 0, Debug.getThreadAllocCount());
+    }
+
+    /**
+     * Binding a menu row as the adapter does now: the listeners were set up once when the row
+     * was made, and the price label is already built.
+     */
+    @Test
+    @UiThreadTest
+    public void menuRow_bind() {
+        BenchmarkState state = benchmarkRule.getState();
+        int position = 0;
+        while (state.keepRunning()) {
+            menuAdapter.onBindViewHolder(menuHolder, position);
+            position = (position + 1) % ROWS;
+        }
+    }
+
+    /**
+     * The same row bound the old way: new click listeners capturing the item on every bind,
+     * and the price run through String.format each time.
+     */
+    @Test
+    @UiThreadTest
+    public void menuRow_bindTheOldWay() {
+        BenchmarkState state = benchmarkRule.getState();
+        int position = 0;
+        while (state.keepRunning()) {
+            MenuItem item = menuAdapter.getCurrentList().get(position);
+            menuHolder.name.setText(item.getName());
+            menuHolder.price.setText(String.format("$%.2f", item.getPriceCents() / 100.0));
+            menuHolder.image.setImageResource(item.getImageResId());
+            menuHolder.editButton.setOnClickListener(v -> item.getName());
+            menuHolder.deleteButton.setOnClickListener(v -> item.getId());
+            position = (position + 1) % ROWS;
+        }
+    }
+}
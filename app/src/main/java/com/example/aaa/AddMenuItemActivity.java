@@ -22,6 +22,7 @@ public class AddMenuItemActivity extends AppCompatActivity {
     // Keys for the data we'll pass back in the result Intent.
     public static final String EXTRA_NAME = "com.example.aaa.NAME";
     public static final String EXTRA_PRICE = "com.example.aaa.PRICE";
+    public static final String EXTRA_PHOTO_URI = "com.example.aaa.PHOTO_URI";
 
     // A request code for our image selection intent.
     private static final int SELECT_PICTURE = 200;
@@ -32,6 +33,9 @@ public class AddMenuItemActivity extends AppCompatActivity {
     private EditText priceEditText;
     private Button selectImageButton;
     private Button saveButton;
+    private String photoUri; // The photo the user picked, if any.
+    private MenuPhotoIngestor.Request pendingPhoto; // A picked photo still being processed.
+    private boolean saved; // Once saved, the photo belongs to the new item.
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,7 +51,10 @@ public class AddMenuItemActivity extends AppCompatActivity {
 
         // When the user wants to select an image, we'll open up the gallery.
         selectImageButton.setOnClickListener(v -> {
-            Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+            // We make our own small copy of whatever they pick (see MenuPhotoIngestor), so we
+            // only need to read it once, right now.
+            Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
             intent.setType("image/*");
             startActivityForResult(Intent.createChooser(intent, "Select Picture"), SELECT_PICTURE);
         });
@@ -63,12 +70,23 @@ public class AddMenuItemActivity extends AppCompatActivity {
                 return; // Bail out if the form isn't complete.
             }
 
+            // Prices are kept as whole cents, so "12.5" becomes 1250.
+            long priceCents;
+            try {
+                priceCents = Money.parse(priceStr);
+            } catch (NumberFormatException e) {
+                Toast.makeText(this, "Please enter a price like 12.50", Toast.LENGTH_SHORT).show();
+                return;
+            }
+
             // Create an intent to ship the data back.
             Intent resultIntent = new Intent();
             resultIntent.putExtra(EXTRA_NAME, name);
-            resultIntent.putExtra(EXTRA_PRICE, Double.parseDouble(priceStr));
+            resultIntent.putExtra(EXTRA_PRICE, priceCents);
+            resultIntent.putExtra(EXTRA_PHOTO_URI, photoUri); // May be null if they didn't pick one.
 
             // Set the result and finish this activity.
+            saved = true;
             setResult(Activity.RESULT_OK, resultIntent);
             finish();
         });
@@ -86,9 +104,46 @@ public class AddMenuItemActivity extends AppCompatActivity {
             // The image URI is in the data intent. Check it's not null.
             if (data != null && data.getData() != null) {
                 Uri selectedImageUri = data.getData();
-                // Set the image on our ImageView.
-                imageView.setImageURI(selectedImageUri);
+                ingestPhoto(selectedImageUri);
+            }
+        }
+    }
+
+    /**
+     * Shrinks the picked photo and saves our own copy in the background, then shows it. Saving
+     * waits until it's done, so the result always points at the stored copy.
+     */
+    private void ingestPhoto(Uri selectedImageUri) {
+        if (pendingPhoto != null) {
+            pendingPhoto.cancel(); // They picked another one before the last was ready.
+        }
+        saveButton.setEnabled(false);
+        pendingPhoto = MenuPhotoIngestor.getInstance(this).ingest(selectedImageUri, (storedUri, preview) -> {
+            pendingPhoto = null;
+            saveButton.setEnabled(true);
+            if (storedUri == null) {
+                Toast.makeText(this, "Couldn't load that photo", Toast.LENGTH_SHORT).show();
+                return;
             }
+            // The photo they picked before this one isn't needed any more.
+            MenuPhotoIngestor.getInstance(this).discard(photoUri);
+            photoUri = storedUri;
+            imageView.setImageBitmap(preview); // Already decoded at a sensible size.
+        });
+    }
+
+    /**
+     * If the screen closes while a photo is still being processed, drop it. And if they backed
+     * out without saving, the copy we already made isn't wanted either.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (pendingPhoto != null) {
+            pendingPhoto.cancel();
+        }
+        if (isFinishing() && !saved) {
+            MenuPhotoIngestor.getInstance(this).discard(photoUri);
         }
     }
 }
@@ -5,6 +5,9 @@ import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.TextView;
@@ -19,6 +22,10 @@ import java.util.Locale;
  * This screen is a straightforward form for booking a new reservation.
  * It uses the system's own date and time pickers which is much nicer than making the user
  * type it all out. Once done, it sends the new reservation back to the main list.
+ *
+ * As soon as it knows the date, time and party size, it suggests a table (see SeatingOptimizer).
+ * The day's bookings are loaded in the background once per date, so the pickers never wait on
+ * the database, and re-ranking the tables after that is quick enough to do as they type.
  */
 public class AddReservationActivity extends AppCompatActivity {
 
@@ -33,6 +40,14 @@ public class AddReservationActivity extends AppCompatActivity {
     private TextView dateTextView;
     private TextView timeTextView;
     private EditText tableEditText;
+    private EditText partySizeEditText;
+    private TextView suggestionTextView;
+
+    private int[] tableCapacities;
+    // The bookings for the day that's picked, once they've loaded, and which day that is.
+    private TableConflictEngine dayEngine;
+    private String dayEngineDate;
+    private String suggestedTable = ""; // What we last filled in, so we never overwrite staff's own choice.
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -44,11 +59,30 @@ public class AddReservationActivity extends AppCompatActivity {
         dateTextView = findViewById(R.id.date_text_view);
         timeTextView = findViewById(R.id.time_text_view);
         tableEditText = findViewById(R.id.table_number_edit_text);
+        partySizeEditText = findViewById(R.id.party_size_edit_text);
+        suggestionTextView = findViewById(R.id.table_suggestion_text);
+        tableCapacities = getResources().getIntArray(R.array.table_capacities);
 
         // Make the date and time fields pop up the pickers when tapped.
         dateTextView.setOnClickListener(v -> showDatePickerDialog());
         timeTextView.setOnClickListener(v -> showTimePickerDialog());
 
+        // Suggest a new table whenever the party size changes.
+        partySizeEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                suggestTable();
+            }
+        });
+
         Button saveButton = findViewById(R.id.save_button);
         saveButton.setOnClickListener(v -> {
             // Grab all the info from the form.
@@ -63,19 +97,112 @@ public class AddReservationActivity extends AppCompatActivity {
                 return; // Bail out if the form isn't fully filled.
             }
 
-            // Bundle up the new reservation's details to send back.
-            Intent resultIntent = new Intent();
-            resultIntent.putExtra(EXTRA_NAME, name);
-            resultIntent.putExtra(EXTRA_DATE, date);
-            resultIntent.putExtra(EXTRA_TIME, time);
-            resultIntent.putExtra(EXTRA_TABLE, Integer.parseInt(tableStr));
+            // Before we save, make sure nobody else already has that table at that time.
+            int table = Integer.parseInt(tableStr);
+            saveButton.setEnabled(false);
+            ReservationRepository.getInstance(this).loadConflictEngine(date, engine -> {
+                saveButton.setEnabled(true);
+                if (isFinishing()) {
+                    return;
+                }
+                int startMinute = ReservationTime.toEpochMinute(date, time);
+                if (engine.isFree(table, startMinute, 0)) {
+                    finishWithResult(name, date, time, table);
+                } else {
+                    // Double-booking! Offer the nearest free times instead.
+                    TableConflictDialog.show(this, table,
+                            engine.nearestFreeSlots(table, startMinute, 0, TableConflictDialog.MAX_SUGGESTIONS),
+                            timeTextView::setText);
+                }
+            });
+        });
+    }
 
-            // Set the result and head back to the previous screen.
-            setResult(Activity.RESULT_OK, resultIntent);
-            finish();
+    /**
+     * Loads the bookings for the picked day in the background, then suggests a table.
+     */
+    private void loadDay(String date) {
+        dayEngine = null;
+        dayEngineDate = date;
+        withdrawSuggestion(); // It was for another day.
+        ReservationRepository.getInstance(this).loadConflictEngine(date, engine -> {
+            if (isFinishing() || !date.equals(dayEngineDate)) {
+                return; // They've picked another day since.
+            }
+            dayEngine = engine;
+            suggestTable();
         });
     }
 
+    /**
+     * Fills in the best free table for the party, if we know enough to pick one. It only
+     * replaces the table field if it's empty or still holds our last suggestion.
+     */
+    private void suggestTable() {
+        String time = timeTextView.getText().toString();
+        String partySize = partySizeEditText.getText().toString().trim();
+        if (dayEngine == null || time.equals(getString(R.string.time_hh_mm)) || partySize.isEmpty()) {
+            withdrawSuggestion();
+            return;
+        }
+        int party;
+        try {
+            party = Integer.parseInt(partySize);
+        } catch (NumberFormatException e) {
+            party = 0; // Far too many digits to be a real party.
+        }
+        if (party <= 0) {
+            withdrawSuggestion();
+            return;
+        }
+
+        SeatingOptimizer optimizer = new SeatingOptimizer(tableCapacities, dayEngine);
+        int table = optimizer.suggestTable(party, ReservationTime.toEpochMinute(dayEngineDate, time), 0);
+        suggestionTextView.setVisibility(View.VISIBLE);
+        if (table == 0) {
+            suggestionTextView.setText("No table for " + party + " is free then. Try another time.");
+            clearSuggestedTable();
+            return;
+        }
+        suggestionTextView.setText("Suggested " + DisplayLabels.table(table)
+                + " (seats " + optimizer.capacityOf(table) + ")");
+        String current = tableEditText.getText().toString().trim();
+        if (current.isEmpty() || current.equals(suggestedTable)) {
+            suggestedTable = String.valueOf(table);
+            tableEditText.setText(suggestedTable);
+        }
+    }
+
+    /**
+     * Takes back our last suggestion, when there's no longer enough to go on: hides the hint
+     * and clears the table we filled in, unless staff have typed their own.
+     */
+    private void withdrawSuggestion() {
+        suggestionTextView.setVisibility(View.GONE);
+        clearSuggestedTable();
+    }
+
+    private void clearSuggestedTable() {
+        if (!suggestedTable.isEmpty() && tableEditText.getText().toString().trim().equals(suggestedTable)) {
+            tableEditText.setText("");
+        }
+        suggestedTable = "";
+    }
+
+    /**
+     * Bundles up the new reservation's details and heads back to the previous screen.
+     */
+    private void finishWithResult(String name, String date, String time, int table) {
+        Intent resultIntent = new Intent();
+        resultIntent.putExtra(EXTRA_NAME, name);
+        resultIntent.putExtra(EXTRA_DATE, date);
+        resultIntent.putExtra(EXTRA_TIME, time);
+        resultIntent.putExtra(EXTRA_TABLE, table);
+
+        setResult(Activity.RESULT_OK, resultIntent);
+        finish();
+    }
+
     /**
      * Pops up the standard Android date picker, starting at today's date.
      */
@@ -90,6 +217,7 @@ public class AddReservationActivity extends AppCompatActivity {
             // The month is 0-indexed, so we have to add 1 to get it right.
             String selectedDate = String.format(Locale.US, "%d-%02d-%02d", year1, month1 + 1, dayOfMonth);
             dateTextView.setText(selectedDate);
+            loadDay(selectedDate);
         }, year, month, day).show();
     }
 
@@ -105,6 +233,7 @@ public class AddReservationActivity extends AppCompatActivity {
         new TimePickerDialog(this, (view, hourOfDay, minute1) -> {
             String selectedTime = String.format(Locale.US, "%02d:%02d", hourOfDay, minute1);
             timeTextView.setText(selectedTime);
+            suggestTable();
         }, hour, minute, true).show(); // `true` for 24-hour format.
     }
 }
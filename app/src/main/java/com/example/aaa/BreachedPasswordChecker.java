@@ -0,0 +1,84 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Checks new passwords against the list of breached passwords bundled with the app, without
+ * any network access. The list is a bloom filter (see BloomFilter) that's memory-mapped
+ * straight out of the APK, so it costs almost no heap however big it is. After the first
+ * call, each check is a SHA-1 and a handful of bit lookups: a few microseconds.
+ *
+ * The asset is committed in the passwordfilter module, built from a pinned public list of
+ * breached passwords (see passwordfilter/build.gradle.kts), and stored uncompressed (see noCompress in
+ * build.gradle), which is what lets us map it in place.
+ */
+public class BreachedPasswordChecker {
+
+    private static final String TAG = "BreachedPasswords";
+    private static final String ASSET_NAME = "breached_passwords.bloom";
+
+    /**
+     * Gets the answer on the main thread: true if the password is in the breached list.
+     */
+    public interface Callback {
+        void onResult(boolean breached);
+    }
+
+    private static BreachedPasswordChecker instance;
+
+    private final Context appContext;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private BloomFilter filter;       // Only touched on the worker thread.
+    private boolean filterUnavailable; // Set if the asset couldn't be opened, so we stop trying.
+
+    private BreachedPasswordChecker(Context context) {
+        appContext = context.getApplicationContext();
+    }
+
+    public static synchronized BreachedPasswordChecker getInstance(Context context) {
+        if (instance == null) {
+            instance = new BreachedPasswordChecker(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Looks a password up in the background. If the list can't be loaded, every password is
+     * treated as fine rather than blocking sign-ups.
+     */
+    public void check(String password, Callback callback) {
+        executor.execute(() -> {
+            BloomFilter loaded = loadFilter();
+            boolean breached = loaded != null && loaded.mightContain(password);
+            mainHandler.post(() -> callback.onResult(breached));
+        });
+    }
+
+    // --- Everything below runs on the worker thread ---
+
+    private BloomFilter loadFilter() {
+        if (filter == null && !filterUnavailable) {
+            // The mapping stays valid after the file is closed, so we don't keep it open.
+            try (AssetFileDescriptor fd = appContext.getAssets().openFd(ASSET_NAME);
+                 FileInputStream in = fd.createInputStream();
+                 FileChannel channel = in.getChannel()) {
+                filter = BloomFilter.map(channel, fd.getStartOffset(), fd.getLength());
+            } catch (IOException e) {
+                Log.w(TAG, "Couldn't open the breached password list", e);
+                filterUnavailable = true;
+            }
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.aaa;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Rejects a password once the breached-password check has flagged it.
+ *
+ * The check itself runs in the background (see BreachedPasswordChecker), so this rule just
+ * remembers the last password that came back as breached and compares against it. That keeps
+ * the per-keystroke part as a plain character comparison.
+ */
+public class BreachedPasswordRule implements PasswordRule {
+
+    static final String MESSAGE = "This password has appeared in a data breach. Please choose another.";
+
+    @Nullable
+    private String knownBreached; // The last password the filter flagged, if any.
+
+    /**
+     * Records that this password was found in the breached list.
+     */
+    public void markBreached(String password) {
+        knownBreached = password;
+    }
+
+    @Nullable
+    @Override
+    public String check(CharSequence password, PasswordStats stats) {
+        return knownBreached != null && contentEquals(password, knownBreached) ? MESSAGE : null;
+    }
+
+    private static boolean contentEquals(CharSequence a, String b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < b.length(); i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
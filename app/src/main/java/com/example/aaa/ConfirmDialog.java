@@ -0,0 +1,67 @@
+package com.example.aaa;
+
+import android.app.AlertDialog;
+import android.content.Context;
+
+/**
+ * A "are you sure?" popup that gets built once and then reused for every item on a screen.
+ * Each time it's shown we just swap in the item it's asking about and the message, instead of
+ * going through a whole new AlertDialog.Builder on every tap.
+ *
+ * @param <T> The kind of thing being confirmed, e.g. a MenuItem or a Reservation.
+ */
+public class ConfirmDialog<T> {
+
+    /**
+     * Called when the user taps "Yes", with the item the dialog was shown for.
+     */
+    public interface OnConfirmedListener<T> {
+        void onConfirmed(T item);
+    }
+
+    private final Context context;
+    private final String title;
+    private final OnConfirmedListener<T> listener;
+
+    private AlertDialog dialog; // Built the first time it's needed.
+    private T pendingItem;      // What we're currently asking about.
+
+    /**
+     * @param context  The screen the dialog belongs to.
+     * @param title    The dialog's title, e.g. "Delete Item".
+     * @param listener What to do once the user says yes.
+     */
+    public ConfirmDialog(Context context, String title, OnConfirmedListener<T> listener) {
+        this.context = context;
+        this.title = title;
+        this.listener = listener;
+    }
+
+    /**
+     * Asks the user to confirm something about an item.
+     *
+     * @param item    The item in question. We only hold on to it while the dialog is open.
+     * @param message The question, e.g. "Are you sure you want to delete this item?".
+     */
+    public void show(T item, CharSequence message) {
+        if (dialog == null) {
+            dialog = new AlertDialog.Builder(context)
+                    .setTitle(title)
+                    .setMessage(message) // Needs setting up front so there's a message view to update later.
+                    .setPositiveButton("Yes", (d, which) -> {
+                        T confirmed = pendingItem;
+                        pendingItem = null;
+                        if (confirmed != null) {
+                            listener.onConfirmed(confirmed);
+                        }
+                    })
+                    .setNegativeButton("No", null) // If they say no, we don't do anything.
+                    .create();
+            dialog.setOnDismissListener(d -> pendingItem = null);
+        } else {
+            dialog.setMessage(message);
+        }
+        pendingItem = item;
+        dialog.show();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.aaa;
+
+/**
+ * Builds the little bits of text our reservation rows show: "date time" and "Table: N".
+ * (Prices are formatted by Money.)
+ *
+ * The idea is that these get worked out once, when an item is created or changed (often on a
+ * background thread), and then the adapters just hand the finished string to a TextView.
+ * Binding a row while scrolling shouldn't need to format anything or allocate anything.
+ * We also stay clear of String.format here, since every call spins up a whole Formatter.
+ */
+public final class DisplayLabels {
+
+    // Table numbers are small, so we make each label once and share it forever.
+    private static final int CACHED_TABLE_LABELS = 100;
+    private static final String TABLE_PREFIX = "Table: ";
+    private static final String[] TABLE_LABELS = new String[CACHED_TABLE_LABELS];
+
+    static {
+        for (int i = 0; i < CACHED_TABLE_LABELS; i++) {
+            TABLE_LABELS[i] = TABLE_PREFIX + i;
+        }
+    }
+
+    private DisplayLabels() {
+        // Just a holder for the static methods below.
+    }
+
+    /**
+     * The label for a table, like "Table: 4". Common table numbers come straight from a cache.
+     */
+    public static String table(int tableNumber) {
+        if (tableNumber >= 0 && tableNumber < CACHED_TABLE_LABELS) {
+            return TABLE_LABELS[tableNumber];
+        }
+        return TABLE_PREFIX + tableNumber;
+    }
+
+    /**
+     * When a reservation starts, as "YYYY-MM-DD HH:MM".
+     *
+     * @param epochMinute The packed start time (see ReservationTime).
+     */
+    public static String dateTime(int epochMinute) {
+        return ReservationTime.formatDate(epochMinute) + ' ' + ReservationTime.formatTime(epochMinute);
+    }
+}
@@ -21,7 +21,8 @@ public class EditMenuItemActivity extends AppCompatActivity {
     // Keys for passing data to and from this activity.
     public static final String EXTRA_NAME = "com.example.aaa.EDIT_NAME";
     public static final String EXTRA_PRICE = "com.example.aaa.EDIT_PRICE";
-    public static final String EXTRA_POSITION = "com.example.aaa.EDIT_POSITION";
+    public static final String EXTRA_ID = "com.example.aaa.EDIT_ID";
+    public static final String EXTRA_PHOTO_URI = "com.example.aaa.EDIT_PHOTO_URI";
 
     // A request code for the image gallery.
     private static final int SELECT_PICTURE = 200;
@@ -32,7 +33,11 @@ public class EditMenuItemActivity extends AppCompatActivity {
     private EditText priceEditText;
     private Button selectImageButton;
     private Button saveButton;
-    private int position; // We need to remember the item's position in the list.
+    private String photoUri; // The item's photo, if it has one.
+    private String originalPhotoUri; // The photo the item had when we opened; the menu still uses it.
+    private MenuPhotoIngestor.Request pendingPhoto; // A newly picked photo still being processed.
+    private boolean saved; // Once saved, a new photo belongs to the item (and the menu drops the old one).
+    private long itemId; // We need to remember which item we're editing.
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,14 +56,21 @@ public class EditMenuItemActivity extends AppCompatActivity {
         if (intent != null && intent.hasExtra(EXTRA_NAME) && intent.hasExtra(EXTRA_PRICE)) {
             // Fill in the form with the item's current data.
             nameEditText.setText(intent.getStringExtra(EXTRA_NAME));
-            priceEditText.setText(String.valueOf(intent.getDoubleExtra(EXTRA_PRICE, 0)));
-            // We need to hang on to the original position so we can send it back.
-            position = intent.getIntExtra(EXTRA_POSITION, -1);
+            priceEditText.setText(Money.toPlainString(intent.getLongExtra(EXTRA_PRICE, 0)));
+            // We need to hang on to the item's ID so we can send it back.
+            itemId = intent.getLongExtra(EXTRA_ID, -1);
+            // Show the item's current photo, if it has one. This loads in the background.
+            photoUri = intent.getStringExtra(EXTRA_PHOTO_URI);
+            originalPhotoUri = photoUri;
+            MenuImageLoader.getInstance(this).load(imageView, photoUri, R.drawable.ic_launcher_background);
         }
 
         // The user can select a new image if they want.
         selectImageButton.setOnClickListener(v -> {
-            Intent galleryIntent = new Intent(Intent.ACTION_GET_CONTENT);
+            // We make our own small copy of whatever they pick (see MenuPhotoIngestor), so we
+            // only need to read it once, right now.
+            Intent galleryIntent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+            galleryIntent.addCategory(Intent.CATEGORY_OPENABLE);
             galleryIntent.setType("image/*");
             startActivityForResult(Intent.createChooser(galleryIntent, "Select Picture"), SELECT_PICTURE);
         });
@@ -73,12 +85,23 @@ public class EditMenuItemActivity extends AppCompatActivity {
                 return;
             }
 
+            // Prices are kept as whole cents, so "12.5" becomes 1250.
+            long priceCents;
+            try {
+                priceCents = Money.parse(priceStr);
+            } catch (NumberFormatException e) {
+                Toast.makeText(this, "Please enter a price like 12.50", Toast.LENGTH_SHORT).show();
+                return;
+            }
+
             // Create the result intent.
             Intent resultIntent = new Intent();
             resultIntent.putExtra(EXTRA_NAME, name);
-            resultIntent.putExtra(EXTRA_PRICE, Double.parseDouble(priceStr));
-            resultIntent.putExtra(EXTRA_POSITION, position); // Don't forget the position!
+            resultIntent.putExtra(EXTRA_PRICE, priceCents);
+            resultIntent.putExtra(EXTRA_ID, itemId); // Don't forget the ID!
+            resultIntent.putExtra(EXTRA_PHOTO_URI, photoUri);
 
+            saved = true;
             setResult(Activity.RESULT_OK, resultIntent);
             finish();
         });
@@ -94,8 +117,57 @@ public class EditMenuItemActivity extends AppCompatActivity {
         if (resultCode == Activity.RESULT_OK && requestCode == SELECT_PICTURE) {
             if (data != null && data.getData() != null) {
                 Uri selectedImageUri = data.getData();
-                imageView.setImageURI(selectedImageUri);
+                ingestPhoto(selectedImageUri);
+            }
+        }
+    }
+
+    /**
+     * Shrinks the picked photo and saves our own copy in the background, then shows it. Saving
+     * waits until it's done, so the result always points at the stored copy.
+     */
+    private void ingestPhoto(Uri selectedImageUri) {
+        if (pendingPhoto != null) {
+            pendingPhoto.cancel(); // They picked another one before the last was ready.
+        }
+        // Make sure a slow load of the old photo doesn't land on top of the new one.
+        MenuImageLoader.getInstance(this).cancel(imageView);
+        saveButton.setEnabled(false);
+        pendingPhoto = MenuPhotoIngestor.getInstance(this).ingest(selectedImageUri, (storedUri, preview) -> {
+            pendingPhoto = null;
+            saveButton.setEnabled(true);
+            if (storedUri == null) {
+                Toast.makeText(this, "Couldn't load that photo", Toast.LENGTH_SHORT).show();
+                return;
             }
+            discardUnsavedPhoto(); // An earlier pick they've now replaced.
+            photoUri = storedUri;
+            imageView.setImageBitmap(preview); // Already decoded at a sensible size.
+        });
+    }
+
+    /**
+     * Deletes a photo picked on this screen that isn't going to be saved. The item's original
+     * photo is never touched here; the menu deletes that itself once the new one is saved.
+     */
+    private void discardUnsavedPhoto() {
+        if (photoUri != null && !photoUri.equals(originalPhotoUri)) {
+            MenuPhotoIngestor.getInstance(this).discard(photoUri);
+        }
+    }
+
+    /**
+     * If the screen closes while a photo is still being processed, drop it. And if they backed
+     * out without saving, any new photo they picked isn't wanted either.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (pendingPhoto != null) {
+            pendingPhoto.cancel();
+        }
+        if (isFinishing() && !saved) {
+            discardUnsavedPhoto();
         }
     }
 }
@@ -26,14 +26,14 @@ public class EditReservationActivity extends AppCompatActivity {
     public static final String EXTRA_DATE = "com.example.aaa.EDIT_RESERVATION_DATE";
     public static final String EXTRA_TIME = "com.example.aaa.EDIT_RESERVATION_TIME";
     public static final String EXTRA_TABLE = "com.example.aaa.EDIT_RESERVATION_TABLE";
-    public static final String EXTRA_POSITION = "com.example.aaa.EDIT_RESERVATION_POSITION";
+    public static final String EXTRA_ID = "com.example.aaa.EDIT_RESERVATION_ID";
 
     // UI components
     private EditText nameEditText;
     private TextView dateTextView;
     private TextView timeTextView;
     private EditText tableEditText;
-    private int position; // We need to hold on to the item's original position.
+    private long reservationId; // Which booking we're editing. We send it back with the result.
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -58,8 +58,8 @@ public class EditReservationActivity extends AppCompatActivity {
             dateTextView.setText(intent.getStringExtra(EXTRA_DATE));
             timeTextView.setText(intent.getStringExtra(EXTRA_TIME));
             tableEditText.setText(String.valueOf(intent.getIntExtra(EXTRA_TABLE, 0)));
-            // And, of course, remember the position.
-            position = intent.getIntExtra(EXTRA_POSITION, -1);
+            // And, of course, remember which reservation this is.
+            reservationId = intent.getLongExtra(EXTRA_ID, 0);
         }
 
         Button saveButton = findViewById(R.id.save_button);
@@ -75,19 +75,41 @@ public class EditReservationActivity extends AppCompatActivity {
                 return;
             }
 
-            // Package up the updated data.
-            Intent resultIntent = new Intent();
-            resultIntent.putExtra(EXTRA_NAME, name);
-            resultIntent.putExtra(EXTRA_DATE, date);
-            resultIntent.putExtra(EXTRA_TIME, time);
-            resultIntent.putExtra(EXTRA_TABLE, Integer.parseInt(tableStr));
-            resultIntent.putExtra(EXTRA_POSITION, position);
-
-            setResult(Activity.RESULT_OK, resultIntent);
-            finish();
+            // Make sure the new time doesn't clash with some other booking on that table.
+            int table = Integer.parseInt(tableStr);
+            saveButton.setEnabled(false);
+            ReservationRepository.getInstance(this).loadConflictEngine(date, engine -> {
+                saveButton.setEnabled(true);
+                if (isFinishing()) {
+                    return;
+                }
+                int startMinute = ReservationTime.toEpochMinute(date, time);
+                if (engine.isFree(table, startMinute, reservationId)) {
+                    finishWithResult(name, date, time, table);
+                } else {
+                    TableConflictDialog.show(this, table,
+                            engine.nearestFreeSlots(table, startMinute, reservationId, TableConflictDialog.MAX_SUGGESTIONS),
+                            timeTextView::setText);
+                }
+            });
         });
     }
 
+    /**
+     * Packages up the updated data and sends it back.
+     */
+    private void finishWithResult(String name, String date, String time, int table) {
+        Intent resultIntent = new Intent();
+        resultIntent.putExtra(EXTRA_NAME, name);
+        resultIntent.putExtra(EXTRA_DATE, date);
+        resultIntent.putExtra(EXTRA_TIME, time);
+        resultIntent.putExtra(EXTRA_TABLE, table);
+        resultIntent.putExtra(EXTRA_ID, reservationId);
+
+        setResult(Activity.RESULT_OK, resultIntent);
+        finish();
+    }
+
     /**
      * Shows the standard Android date picker.
      */
@@ -4,10 +4,7 @@ import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
 import android.app.AlertDialog;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.text.Editable;
 import android.text.SpannableString;
 import android.text.Spanned;
@@ -28,9 +25,6 @@ import androidx.core.splashscreen.SplashScreen;
 
 import com.google.android.material.textfield.TextInputEditText;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -50,16 +44,12 @@ public class MainActivity extends AppCompatActivity {
     // endregion
 
     // region State & Data
-    private SharedPreferences sharedPreferences;
+    private SettingsStore settings; // Remember-me and friends, already in memory after startup.
     private boolean isDataReady = false; // A flag to know when our initial data is ready.
-    private List<String> registeredUsers; // This is just a stand-in for a real user database.
+    private UserStore userStore; // Everyone who can log in, with hashed passwords.
+    private UserStore.Request pendingLogin; // The password check in progress, if any.
     // endregion
 
-    // SharedPreferences keys
-    private static final String PREFS_NAME = "MyPrefsFile";
-    private static final String PREF_EMAIL = "email";
-    private static final String PREF_REMEMBER = "remember";
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -67,6 +57,8 @@ public class MainActivity extends AppCompatActivity {
         SplashScreen splashScreen = SplashScreen.installSplashScreen(this);
 
         setContentView(R.layout.activity_main);
+        userStore = UserStore.getInstance(this);
+        settings = SettingsStore.getInstance(this);
 
         // Wire up all the UI components from our XML layout.
         initializeViews();
@@ -77,16 +69,25 @@ public class MainActivity extends AppCompatActivity {
         // as long as this condition returns false.
         splashScreen.setKeepOnScreenCondition(() -> !isDataReady);
 
-        // In a real app, this is where you'd load data from a database or network.
-        // We'll simulate a 2-second delay.
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            isDataReady = true; // Signal that we're ready for the splash screen to go away.
-            setupLoginForm();
-            loadPreferences();
-            registeredUsers = new ArrayList<>(Arrays.asList("test@example.com", "user@domain.com"));
-            // The splash screen is now dismissing, so let's animate our login form in.
-            animateLoginScreenIn();
-        }, 2000);
+        // Get everything the login screen needs ready at the same time, in the background.
+        // The splash goes away the moment it's all done. The user database isn't on the list:
+        // nothing needs it until someone signs in, and creating it on first run means hashing
+        // passwords, which would hold the splash up.
+        new StartupInitializer(this)
+                .addTask("preferences", settings::warmUp)
+                .addTask("reservations", () -> ReservationRepository.getInstance(this).warmUp())
+                .start(() -> {
+                    if (isDestroyed()) {
+                        return; // They backed out while the splash was still up.
+                    }
+                    isDataReady = true; // Signal that we're ready for the splash screen to go away.
+                    userStore.warmUp(); // Opens the user database behind the login screen.
+                    setupLoginForm();
+                    loadPreferences(); // Already read from disk, so this is instant.
+                    // The splash screen is now dismissing, so let's animate our login form in.
+                    animateLoginScreenIn();
+                    reportFullyDrawn(); // Lets the system (and our benchmarks) time the cold start.
+                });
     }
 
     /**
@@ -142,32 +143,29 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Checks SharedPreferences to see if we need to pre-fill the user's email.
+     * Checks the settings to see if we need to pre-fill the user's email.
      */
     private void loadPreferences() {
-        sharedPreferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-        boolean shouldRemember = sharedPreferences.getBoolean(PREF_REMEMBER, false);
+        boolean shouldRemember = settings.get(SettingsStore.REMEMBER_ME);
         rememberMeCheckbox.setChecked(shouldRemember);
 
         if (shouldRemember) {
-            String email = sharedPreferences.getString(PREF_EMAIL, "");
-            accountInput.setText(email);
+            accountInput.setText(settings.get(SettingsStore.REMEMBERED_EMAIL));
         }
     }
 
     /**
-     * Saves the user's preference for the "Remember me" feature.
+     * Saves the user's preference for the "Remember me" feature. This only changes the
+     * in-memory values; the store saves them to disk in the background.
      */
     private void savePreferences() {
-        SharedPreferences.Editor editor = sharedPreferences.edit();
         if (rememberMeCheckbox.isChecked()) {
-            editor.putString(PREF_EMAIL, Objects.requireNonNull(accountInput.getText()).toString());
-            editor.putBoolean(PREF_REMEMBER, true);
+            settings.set(SettingsStore.REMEMBERED_EMAIL, Objects.requireNonNull(accountInput.getText()).toString());
+            settings.set(SettingsStore.REMEMBER_ME, true);
         } else {
-            editor.remove(PREF_EMAIL);
-            editor.putBoolean(PREF_REMEMBER, false);
+            settings.remove(SettingsStore.REMEMBERED_EMAIL);
+            settings.set(SettingsStore.REMEMBER_ME, false);
         }
-        editor.apply();
     }
 
     /**
@@ -177,27 +175,42 @@ public class MainActivity extends AppCompatActivity {
         String email = Objects.requireNonNull(accountInput.getText()).toString().trim();
         String password = Objects.requireNonNull(passwordInput.getText()).toString();
 
-        if (email.equals("admin") && password.equals("admin123")) {
-            savePreferences();
-            Toast.makeText(this, "Admin login successful!", Toast.LENGTH_SHORT).show();
-            Intent intent = new Intent(MainActivity.this, StaffDashboardActivity.class);
-            startActivity(intent);
-        } else if (registeredUsers != null && registeredUsers.contains(email)) {
-            errorBanner.setVisibility(View.GONE);
-            loginButton.setText("");
-            loadingProgressBar.setVisibility(View.VISIBLE);
-            loginButton.setEnabled(false);
-
-            new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                loginButton.setText("Login");
-                loadingProgressBar.setVisibility(View.GONE);
-                loginButton.setEnabled(true);
+        // Show the spinner while the password gets checked in the background.
+        errorBanner.setVisibility(View.GONE);
+        loginButton.setText("");
+        loadingProgressBar.setVisibility(View.VISIBLE);
+        loginButton.setEnabled(false);
+
+        // The spinner stays up only while the password is really being checked.
+        pendingLogin = userStore.signIn(email, password, user -> {
+            pendingLogin = null;
+            loginButton.setText("Login");
+            loadingProgressBar.setVisibility(View.GONE);
+            loginButton.setEnabled(true);
+
+            if (user == null) {
+                errorBanner.setVisibility(View.VISIBLE);
+            } else if (user.isStaff) {
+                savePreferences();
+                Toast.makeText(this, "Admin login successful!", Toast.LENGTH_SHORT).show();
+                Intent intent = new Intent(MainActivity.this, StaffDashboardActivity.class);
+                startActivity(intent);
+            } else {
                 savePreferences();
                 Toast.makeText(this, "Login successful!", Toast.LENGTH_SHORT).show();
                 // TODO: Navigate to the Guest Dashboard screen
-            }, 2000);
-        } else {
-            errorBanner.setVisibility(View.VISIBLE);
+            }
+        });
+    }
+
+    /**
+     * If the screen goes away mid-login, there's nobody left to tell, so drop the request.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (pendingLogin != null) {
+            pendingLogin.cancel();
         }
     }
 
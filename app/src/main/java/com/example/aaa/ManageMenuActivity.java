@@ -1,10 +1,21 @@
 package com.example.aaa;
 
+import android.app.AlertDialog;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Menu;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -12,7 +23,9 @@ import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This is where staff can manage the restaurant's menu. It displays all the menu items in a list
@@ -23,9 +36,26 @@ public class ManageMenuActivity extends AppCompatActivity {
     // These are request codes we use to figure out which activity is sending us a result.
     public static final int ADD_MENU_ITEM_REQUEST = 1;
     public static final int EDIT_MENU_ITEM_REQUEST = 2;
+    public static final int IMPORT_MENU_REQUEST = 3;
 
-    private List<MenuItem> menuItems; // Our list of menu items.
+    // Wait this long after the last keystroke before actually running a search.
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+
+    // All our menu items, keyed by ID. A LinkedHashMap keeps them in the order they were added,
+    // and replacing an item under the same ID keeps its spot, so edits and deletes are O(1).
+    private Map<Long, MenuItem> menuItems;
     private MenuAdapter adapter;      // The adapter that feeds our data to the RecyclerView.
+    private MenuRepository repository; // Saves every change so it survives the app closing.
+
+    private final MenuSearchIndex searchIndex = new MenuSearchIndex(); // Word index over item names.
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private String searchQuery = ""; // What's in the search box right now.
+    private final Runnable runSearch = this::showMenuItems;
+
+    private MenuImporter.Request pendingImport; // A bulk import that's running, if any.
+    private AlertDialog importDialog;
+    private ProgressBar importProgress;
+    private TextView importStatus;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -40,18 +70,28 @@ public class ManageMenuActivity extends AppCompatActivity {
         RecyclerView recyclerView = findViewById(R.id.menu_recycler_view);
         FloatingActionButton fab = findViewById(R.id.add_menu_item_fab);
 
-        // Here, we're just creating some sample data. In a real app, we'd probably load this
-        // from a database or a server.
-        menuItems = new ArrayList<>();
-        menuItems.add(new MenuItem("Pizza Margherita", 12.50, R.drawable.ic_launcher_background));
-        menuItems.add(new MenuItem("Caesar Salad", 8.00, R.drawable.ic_launcher_background));
-        menuItems.add(new MenuItem("Beef Burger", 14.75, R.drawable.ic_launcher_background));
+        menuItems = new LinkedHashMap<>();
+        repository = MenuRepository.getInstance(this);
 
         // Now we set up the RecyclerView. We need to give it an adapter and a layout manager.
-        adapter = new MenuAdapter(this, menuItems);
+        adapter = new MenuAdapter(this, item -> {
+            menuItems.remove(item.getId());
+            searchIndex.remove(item.getId());
+            repository.delete(item.getId());
+            showMenuItems();
+        });
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(adapter);
 
+        // The menu comes off disk in the background (it's only read once per run, after that
+        // it's already in memory).
+        repository.loadAll(items -> {
+            for (MenuItem item : items) {
+                addMenuItem(item);
+            }
+            showMenuItems();
+        });
+
         // If the user clicks the floating action button, we'll open the "add item" screen.
         fab.setOnClickListener(v -> {
             Intent intent = new Intent(ManageMenuActivity.this, AddMenuItemActivity.class);
@@ -60,6 +100,177 @@ public class ManageMenuActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Sets up the search box in the toolbar.
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.manage_menu_menu, menu);
+        SearchView searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
+        searchView.setQueryHint("Search dishes");
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                return false; // We're already searching as they type.
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                // Don't search on every single keystroke. Wait until they pause for a moment.
+                searchQuery = newText;
+                searchHandler.removeCallbacks(runSearch);
+                searchHandler.postDelayed(runSearch, SEARCH_DEBOUNCE_MS);
+                return true;
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Handles the toolbar's overflow menu. Spelled out in full because our own MenuItem class
+     * has the same name.
+     */
+    @Override
+    public boolean onOptionsItemSelected(@NonNull android.view.MenuItem item) {
+        if (item.getItemId() == R.id.action_import) {
+            Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("*/*");
+            intent.putExtra(Intent.EXTRA_MIME_TYPES,
+                    new String[]{"text/csv", "text/comma-separated-values", "application/json", "text/plain"});
+            startActivityForResult(intent, IMPORT_MENU_REQUEST);
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * Imports every dish in a CSV or JSON file, with a progress dialog while it runs.
+     */
+    private void startImport(Uri file) {
+        if (importDialog == null) {
+            View content = getLayoutInflater().inflate(R.layout.dialog_progress, null);
+            importProgress = content.findViewById(R.id.progress_bar);
+            importStatus = content.findViewById(R.id.progress_status);
+            importDialog = new AlertDialog.Builder(this)
+                    .setTitle("Importing menu")
+                    .setView(content)
+                    .setCancelable(false)
+                    .setNegativeButton("Cancel", (d, which) -> {
+                        if (pendingImport != null) {
+                            pendingImport.cancel();
+                        }
+                    })
+                    .create();
+        }
+        importProgress.setIndeterminate(true);
+        importStatus.setText("Reading file…");
+        importDialog.show();
+
+        pendingImport = MenuImporter.getInstance(this).start(file, new MenuImporter.Listener() {
+            @Override
+            public void onProgress(int imported, int percent) {
+                if (isDestroyed()) {
+                    return;
+                }
+                if (percent >= 0) {
+                    importProgress.setIndeterminate(false);
+                    importProgress.setProgress(percent);
+                }
+                importStatus.setText(String.format("Imported %,d dishes", imported));
+            }
+
+            @Override
+            public void onFinished(MenuImporter.Result result) {
+                pendingImport = null;
+                if (isDestroyed()) {
+                    return;
+                }
+                importDialog.dismiss();
+                String message = result.error != null ? result.error
+                        : String.format("Imported %,d dishes", result.imported)
+                        + (result.skipped > 0 ? String.format(", skipped %,d rows that weren't valid", result.skipped) : "")
+                        + (result.cancelled ? " before stopping" : "");
+                Toast.makeText(ManageMenuActivity.this, message, Toast.LENGTH_LONG).show();
+                showImportedItems();
+            }
+        });
+    }
+
+    /**
+     * Picks up the newly imported dishes. Anything already on screen stays as it is.
+     */
+    private void showImportedItems() {
+        repository.loadAll(items -> {
+            for (MenuItem item : items) {
+                if (!menuItems.containsKey(item.getId())) {
+                    addMenuItem(item);
+                }
+            }
+            showMenuItems();
+        });
+    }
+
+    /**
+     * If the screen closes mid-import, stop after the current batch. Whatever's been imported
+     * so far stays saved.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        searchHandler.removeCallbacks(runSearch);
+        if (pendingImport != null) {
+            pendingImport.cancel();
+        }
+        if (importDialog != null) {
+            importDialog.dismiss();
+        }
+    }
+
+    /**
+     * Hands the adapter a snapshot of our list (or just the items matching the search box).
+     * It diffs it against what's on screen in the background and only redraws the rows that
+     * changed.
+     */
+    private void showMenuItems() {
+        if (searchQuery.trim().isEmpty()) {
+            adapter.submitList(new ArrayList<>(menuItems.values()));
+            return;
+        }
+
+        // The index hands us the matching IDs, so we never have to scan the whole menu.
+        List<Long> matchingIds = searchIndex.search(searchQuery);
+        List<MenuItem> results = new ArrayList<>(matchingIds.size());
+        for (long id : matchingIds) {
+            results.add(menuItems.get(id));
+        }
+        adapter.submitList(results);
+    }
+
+    /**
+     * Adds (or replaces) an item, keeping the search index in step. This only changes what's on
+     * screen; the repository is what writes it to disk.
+     */
+    private void addMenuItem(MenuItem item) {
+        menuItems.put(item.getId(), item);
+        searchIndex.put(item.getId(), item.getName());
+    }
+
+    /**
+     * Shows an item the repository has just saved, or says so if it couldn't be.
+     */
+    private void showSavedItem(MenuItem item) {
+        if (isDestroyed()) {
+            return;
+        }
+        if (item == null) {
+            Toast.makeText(this, "Couldn't save that dish", Toast.LENGTH_LONG).show();
+            return;
+        }
+        addMenuItem(item);
+        showMenuItems();
+    }
+
     /**
      * This method gets called when an activity we started for a result (like adding or editing
      * an item) finishes.
@@ -74,33 +285,34 @@ public class ManageMenuActivity extends AppCompatActivity {
 
         // First, make sure everything went well and we actually have some data.
         if (resultCode == RESULT_OK && data != null) {
+            // A file to import from the toolbar's "Import menu" action.
+            if (requestCode == IMPORT_MENU_REQUEST && data.getData() != null) {
+                startImport(data.getData());
+
             // Check if we're getting a result from the "add item" screen.
-            if (requestCode == ADD_MENU_ITEM_REQUEST) {
+            } else if (requestCode == ADD_MENU_ITEM_REQUEST) {
                 // Grab the new item's details from the result intent.
                 String name = data.getStringExtra(AddMenuItemActivity.EXTRA_NAME);
-                double price = data.getDoubleExtra(AddMenuItemActivity.EXTRA_PRICE, 0);
+                long priceCents = data.getLongExtra(AddMenuItemActivity.EXTRA_PRICE, 0);
+                String photoUri = data.getStringExtra(AddMenuItemActivity.EXTRA_PHOTO_URI);
 
-                // Create a new MenuItem and add it to our list.
-                MenuItem newItem = new MenuItem(name, price, R.drawable.ic_launcher_background);
-                menuItems.add(newItem);
-                // Tell the adapter that a new item was added so it can update the list.
-                adapter.notifyItemInserted(menuItems.size() - 1);
+                // The repository gives it an ID once the saved menu is loaded, so it can't
+                // clash with a dish from an earlier run even if we were just restarted.
+                repository.add(name, priceCents, photoUri, this::showSavedItem);
 
             // Check if we're getting a result from the "edit item" screen.
             } else if (requestCode == EDIT_MENU_ITEM_REQUEST) {
-                // Grab the updated details and the item's original position.
+                // Grab the updated details and the ID of the item that was edited.
                 String name = data.getStringExtra(EditMenuItemActivity.EXTRA_NAME);
-                double price = data.getDoubleExtra(EditMenuItemActivity.EXTRA_PRICE, 0);
-                int position = data.getIntExtra(EditMenuItemActivity.EXTRA_POSITION, -1);
-
-                // If we have a valid position, update the item at that spot in the list.
-                if (position != -1) {
-                    MenuItem item = menuItems.get(position);
-                    item.setName(name);
-                    item.setPrice(price);
-                    // Tell the adapter that the item has changed so it can redraw it.
-                    adapter.notifyItemChanged(position);
-                }
+                long priceCents = data.getLongExtra(EditMenuItemActivity.EXTRA_PRICE, 0);
+                long id = data.getLongExtra(EditMenuItemActivity.EXTRA_ID, -1);
+                String photoUri = data.getStringExtra(EditMenuItemActivity.EXTRA_PHOTO_URI);
+
+                // The repository looks the item up by ID and saves an updated copy. It doesn't
+                // need our list, which may not have loaded yet if the app was restarted while
+                // the edit screen was open. The result comes back after loadAll's, so it wins.
+                // We never change the old object in place, so the adapter can tell what changed.
+                repository.update(id, name, priceCents, photoUri, this::showSavedItem);
             }
         }
     }
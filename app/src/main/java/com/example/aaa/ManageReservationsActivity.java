@@ -1,31 +1,71 @@
 package com.example.aaa;
 
+import android.app.AlertDialog;
+import android.app.DatePickerDialog;
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Menu;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
+import androidx.core.util.Pair;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.datepicker.MaterialDatePicker;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+import java.util.Locale;
 
 /**
  * This is where staff can manage customer reservations. It shows a list of all the current
- * bookings and lets staff add new ones or edit existing ones.
+ * bookings and lets staff add new ones or edit existing ones. The list can also be swapped for
+ * a grid of one day's tables against time, to see at a glance what's free.
  */
 public class ManageReservationsActivity extends AppCompatActivity {
 
     // Request codes to help us figure out which screen is sending us a result.
     public static final int ADD_RESERVATION_REQUEST = 1;
     public static final int EDIT_RESERVATION_REQUEST = 2;
+    public static final int EXPORT_RESERVATIONS_REQUEST = 3;
 
-    private List<Reservation> reservations; // The data for our list.
     private ReservationAdapter adapter;       // The adapter to link our data to the list view.
+    private ReservationRepository repository; // Where the reservations actually live.
+    private RecyclerView recyclerView;
+
+    // The table grid, and what it's showing. The occupancy is null until the grid is first opened.
+    private TableGridView gridView;
+    private TableOccupancy occupancy;
+    private boolean showingGrid;
+
+    // Wait this long after the last keystroke before actually running a search.
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private String searchQuery = ""; // What's in the search box right now.
+    private final Runnable runSearch = () -> adapter.setFilter(adapter.getFilter().withName(searchQuery));
+
+    // What the user chose to export, while they're picking where to save it.
+    private ReservationExportWriter.Format exportFormat;
+    private ReservationFilter exportRange;
+    private ReservationExporter.Request pendingExport; // The export that's running, if any.
+    private AlertDialog exportDialog;
+    private ProgressBar exportProgress;
+    private TextView exportStatus;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -37,19 +77,25 @@ public class ManageReservationsActivity extends AppCompatActivity {
         setSupportActionBar(toolbar);
 
         // Get a handle on the rest of the UI bits.
-        RecyclerView recyclerView = findViewById(R.id.reservations_recycler_view);
+        recyclerView = findViewById(R.id.reservations_recycler_view);
+        gridView = findViewById(R.id.table_grid_view);
         FloatingActionButton fab = findViewById(R.id.add_reservation_fab);
 
-        // Let's create some sample data to work with for now.
-        reservations = new ArrayList<>();
-        reservations.add(new Reservation("Alice Smith", "2024-06-10", "18:00", 2));
-        reservations.add(new Reservation("Bob Johnson", "2024-06-10", "19:30", 4));
-        reservations.add(new Reservation("Charlie Brown", "2024-06-11", "20:00", 8));
+        // The adapter pages its data straight out of the repository as the user scrolls.
+        repository = ReservationRepository.getInstance(this);
+        adapter = new ReservationAdapter(this, repository, reservation -> {
+            repository.delete(reservation.getId());
+            adapter.refresh();
+            if (occupancy != null) {
+                occupancy.remove(reservation.getId());
+                gridView.onBookingsChanged();
+            }
+        });
 
         // Hook up the RecyclerView to our adapter and a layout manager.
-        adapter = new ReservationAdapter(this, reservations);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(adapter);
+        adapter.refresh();
 
         // When the plus button is tapped, we'll open the screen to add a new reservation.
         fab.setOnClickListener(v -> {
@@ -58,6 +104,216 @@ public class ManageReservationsActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Sets up the name search box and the date filter in the toolbar.
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.manage_reservations_menu, menu);
+        SearchView searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
+        searchView.setQueryHint("Search customers");
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                return false; // We're already searching as they type.
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                // Don't query the database on every single keystroke. Wait for a pause.
+                searchQuery = newText;
+                searchHandler.removeCallbacks(runSearch);
+                searchHandler.postDelayed(runSearch, SEARCH_DEBOUNCE_MS);
+                return true;
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(@NonNull android.view.MenuItem item) {
+        if (item.getItemId() == R.id.action_filter_date) {
+            showDateFilterPicker();
+            return true;
+        } else if (item.getItemId() == R.id.action_all_dates) {
+            adapter.setFilter(adapter.getFilter().anyDay());
+            getSupportActionBar().setSubtitle(null);
+            if (showingGrid) {
+                loadGrid();
+            }
+            return true;
+        } else if (item.getItemId() == R.id.action_toggle_grid) {
+            showingGrid = !showingGrid;
+            item.setTitle(showingGrid ? "List" : "Table grid");
+            recyclerView.setVisibility(showingGrid ? View.GONE : View.VISIBLE);
+            gridView.setVisibility(showingGrid ? View.VISIBLE : View.GONE);
+            if (showingGrid) {
+                loadGrid();
+            } else if (!adapter.getFilter().hasTimeRange()) {
+                getSupportActionBar().setSubtitle(null); // Drop the "Today" the grid put there.
+            }
+            return true;
+        } else if (item.getItemId() == R.id.action_export) {
+            showExportOptions();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    /**
+     * Lets staff pick a day, then only shows that day's bookings.
+     */
+    private void showDateFilterPicker() {
+        Calendar calendar = Calendar.getInstance();
+        new DatePickerDialog(this, (view, year, month, dayOfMonth) -> {
+            // The month is 0-indexed, so we have to add 1 to get it right.
+            String date = String.format(Locale.US, "%d-%02d-%02d", year, month + 1, dayOfMonth);
+            adapter.setFilter(adapter.getFilter().onDay(date));
+            getSupportActionBar().setSubtitle(date);
+            if (showingGrid) {
+                loadGrid();
+            }
+        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
+    }
+
+    /**
+     * Fills the grid with the day the list is narrowed to, or today if it isn't. Only that
+     * day's bookings are loaded; after this, adds, edits and deletes update it one at a time.
+     */
+    private void loadGrid() {
+        ReservationFilter filter = adapter.getFilter();
+        int dayStart = filter.hasTimeRange()
+                ? ReservationTime.startOfDay(filter.getFromSlot())
+                : ReservationTime.toEpochMinute(LocalDate.now());
+        int tableCount = getResources().getIntArray(R.array.table_capacities).length;
+        TableOccupancy day = TableOccupancy.forDay(dayStart, tableCount);
+        occupancy = day;
+        repository.loadRange(day.getLoadFrom(), day.getLoadTo(), reservations -> {
+            if (occupancy != day || isDestroyed()) {
+                return; // They've picked another day since.
+            }
+            day.putAll(reservations);
+            gridView.setOccupancy(day);
+        });
+        if (!filter.hasTimeRange()) {
+            getSupportActionBar().setSubtitle("Today");
+        }
+    }
+
+    /**
+     * Tells the grid a booking was added or changed. If it's been moved to another day, it just
+     * drops off the grid.
+     */
+    private void updateGrid(Reservation reservation) {
+        if (occupancy == null) {
+            return;
+        }
+        int slot = reservation.getSlot();
+        if (slot >= occupancy.getLoadFrom() && slot < occupancy.getLoadTo()) {
+            occupancy.put(reservation.getId(), reservation.getTableNumber(), slot);
+        } else {
+            occupancy.remove(reservation.getId());
+        }
+        gridView.onBookingsChanged();
+    }
+
+    /**
+     * The first step of an export: which kind of file do they want?
+     */
+    private void showExportOptions() {
+        new AlertDialog.Builder(this)
+                .setTitle("Export reservations")
+                .setItems(new String[]{"Spreadsheet (CSV)", "Calendar (.ics)"}, (dialog, which) ->
+                        pickExportRange(which == 0 ? ReservationExportWriter.Format.CSV : ReservationExportWriter.Format.ICS))
+                .show();
+    }
+
+    /**
+     * The second step: which dates? Then we ask where to save it.
+     */
+    private void pickExportRange(ReservationExportWriter.Format format) {
+        MaterialDatePicker<Pair<Long, Long>> picker = MaterialDatePicker.Builder.dateRangePicker()
+                .setTitleText("Which dates?")
+                .build();
+        picker.addOnPositiveButtonClickListener(selection -> {
+            // The picker hands back midnight UTC of each chosen day.
+            LocalDate from = Instant.ofEpochMilli(selection.first).atZone(ZoneOffset.UTC).toLocalDate();
+            LocalDate to = Instant.ofEpochMilli(selection.second).atZone(ZoneOffset.UTC).toLocalDate();
+            exportFormat = format;
+            exportRange = ReservationFilter.ALL.between(ReservationTime.toEpochMinute(from),
+                    ReservationTime.toEpochMinute(to.plusDays(1))); // Up to the end of the last day.
+
+            Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType(format.mimeType);
+            intent.putExtra(Intent.EXTRA_TITLE, "reservations-" + from + "-to-" + to + "." + format.extension);
+            startActivityForResult(intent, EXPORT_RESERVATIONS_REQUEST);
+        });
+        picker.show(getSupportFragmentManager(), "export_range");
+    }
+
+    /**
+     * Writes the export in the background, with a progress dialog they can cancel.
+     */
+    private void startExport(Uri destination) {
+        if (exportDialog == null) {
+            View content = getLayoutInflater().inflate(R.layout.dialog_progress, null);
+            exportProgress = content.findViewById(R.id.progress_bar);
+            exportStatus = content.findViewById(R.id.progress_status);
+            exportDialog = new AlertDialog.Builder(this)
+                    .setTitle("Exporting reservations")
+                    .setView(content)
+                    .setCancelable(false)
+                    .setNegativeButton("Cancel", (d, which) -> {
+                        if (pendingExport != null) {
+                            pendingExport.cancel();
+                        }
+                    })
+                    .create();
+        }
+        exportProgress.setIndeterminate(true);
+        exportStatus.setText("Starting…");
+        exportDialog.show();
+
+        pendingExport = ReservationExporter.getInstance(this).start(destination, exportFormat, exportRange,
+                new ReservationExporter.Listener() {
+                    @Override
+                    public void onProgress(int written, int total) {
+                        if (isDestroyed() || total <= 0) {
+                            return;
+                        }
+                        exportProgress.setIndeterminate(false);
+                        exportProgress.setProgress(Math.min(100, written * 100 / total));
+                        exportStatus.setText(String.format("Exported %,d of %,d", written, total));
+                    }
+
+                    @Override
+                    public void onFinished(int written, boolean cancelled, String error) {
+                        pendingExport = null;
+                        if (isDestroyed()) {
+                            return;
+                        }
+                        exportDialog.dismiss();
+                        String message = error != null ? error
+                                : cancelled ? "Export cancelled"
+                                : String.format("Exported %,d reservations", written);
+                        Toast.makeText(ManageReservationsActivity.this, message, Toast.LENGTH_LONG).show();
+                    }
+                });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        searchHandler.removeCallbacks(runSearch);
+        if (pendingExport != null) {
+            pendingExport.cancel();
+        }
+        if (exportDialog != null) {
+            exportDialog.dismiss();
+        }
+    }
+
     /**
      * This gets called when a screen we opened for a result (like adding or editing)
      * is finished.
@@ -72,19 +328,27 @@ public class ManageReservationsActivity extends AppCompatActivity {
 
         // First, let's make sure the user didn't just hit the back button.
         if (resultCode == RESULT_OK && data != null) {
+            // Is this where they want the export saved?
+            if (requestCode == EXPORT_RESERVATIONS_REQUEST) {
+                if (data.getData() != null && exportFormat != null) {
+                    startExport(data.getData());
+                }
+
             // Was this a new reservation?
-            if (requestCode == ADD_RESERVATION_REQUEST) {
+            } else if (requestCode == ADD_RESERVATION_REQUEST) {
                 // Yep. Let's pull the details out of the intent.
                 String name = data.getStringExtra(AddReservationActivity.EXTRA_NAME);
                 String date = data.getStringExtra(AddReservationActivity.EXTRA_DATE);
                 String time = data.getStringExtra(AddReservationActivity.EXTRA_TIME);
                 int table = data.getIntExtra(AddReservationActivity.EXTRA_TABLE, 0);
 
-                // Create our new reservation object and add it to the list.
+                // Create our new reservation object, save it, then refresh the list so it
+                // shows up in the right spot.
                 Reservation newReservation = new Reservation(name, date, time, table);
-                reservations.add(newReservation);
-                // Tell the adapter that there's a new item to show.
-                adapter.notifyItemInserted(reservations.size() - 1);
+                repository.insert(newReservation, saved -> {
+                    adapter.refresh();
+                    updateGrid(saved);
+                });
 
             // Or was this an edited reservation?
             } else if (requestCode == EDIT_RESERVATION_REQUEST) {
@@ -93,17 +357,18 @@ public class ManageReservationsActivity extends AppCompatActivity {
                 String date = data.getStringExtra(EditReservationActivity.EXTRA_DATE);
                 String time = data.getStringExtra(EditReservationActivity.EXTRA_TIME);
                 int table = data.getIntExtra(EditReservationActivity.EXTRA_TABLE, 0);
-                int position = data.getIntExtra(EditReservationActivity.EXTRA_POSITION, -1);
-
-                // If we got a valid position, let's update the item in our list.
-                if (position != -1) {
-                    Reservation reservation = reservations.get(position);
-                    reservation.setCustomerName(name);
-                    reservation.setDate(date);
-                    reservation.setTime(time);
-                    reservation.setTableNumber(table);
-                    // Tell the adapter this item has changed so it can redraw it.
-                    adapter.notifyItemChanged(position);
+                long id = data.getLongExtra(EditReservationActivity.EXTRA_ID, 0);
+
+                // Save a fresh copy of the reservation under the same ID. We go by ID rather than
+                // list position, so it doesn't matter if the list moved while the edit screen was
+                // open. We also don't change the old object in place, so the list can compare
+                // the two and only redraw what actually changed.
+                if (id != 0) {
+                    Reservation updated = new Reservation(name, ReservationTime.toEpochMinute(date, time), table);
+                    updated.setId(id);
+                    repository.update(updated);
+                    adapter.refresh();
+                    updateGrid(updated);
                 }
             }
         }
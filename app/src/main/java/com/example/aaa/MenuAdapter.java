@@ -1,7 +1,6 @@
 package com.example.aaa;
 
 import android.app.Activity;
-import android.app.AlertDialog;
 import android.content.Context;
 import android.content.Intent;
 import android.view.LayoutInflater;
@@ -13,93 +12,156 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
 
 /**
  * This is the adapter for our menu items RecyclerView. It's the bridge between our list of
  * `MenuItem` objects and the actual list items that get displayed on screen.
+ * It's a ListAdapter, so whenever we hand it a new list it works out what changed on a
+ * background thread and only redraws those rows.
  */
-public class MenuAdapter extends RecyclerView.Adapter<MenuAdapter.MenuViewHolder> {
+public class MenuAdapter extends ListAdapter<MenuItem, MenuAdapter.MenuViewHolder> {
+
+    /**
+     * Lets the screen know an item was deleted, so it can update its own list.
+     */
+    public interface OnMenuItemDeletedListener {
+        void onMenuItemDeleted(MenuItem item);
+    }
+
+    /**
+     * How we tell whether two menu items are the same dish, and whether it has changed.
+     */
+    private static final DiffUtil.ItemCallback<MenuItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<MenuItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull MenuItem oldItem, @NonNull MenuItem newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull MenuItem oldItem, @NonNull MenuItem newItem) {
+            return oldItem.getName().equals(newItem.getName())
+                    && oldItem.getPriceCents() == newItem.getPriceCents()
+                    && oldItem.getImageResId() == newItem.getImageResId()
+                    && Objects.equals(oldItem.getPhotoUri(), newItem.getPhotoUri());
+        }
+    };
 
-    private final List<MenuItem> menuItems; // The actual data we're displaying.
     private final Context context;          // We need this to launch new activities.
+    private final ConfirmDialog<MenuItem> deleteDialog; // One dialog, reused for every row.
+    private final MenuImageLoader imageLoader; // Decodes and caches the dish photos.
 
     /**
-     * Simple constructor to get the data and context we need.
+     * Simple constructor to get the context we need. The items themselves arrive via submitList().
      *
      * @param context The activity that's using this adapter.
-     * @param menuItems The list of menu items to show.
+     * @param deletedListener Who to tell when an item gets deleted.
      */
-    public MenuAdapter(Context context, List<MenuItem> menuItems) {
+    public MenuAdapter(Context context, OnMenuItemDeletedListener deletedListener) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.menuItems = menuItems;
+        this.deleteDialog = new ConfirmDialog<>(context, "Delete Item", item -> {
+            // OK, they're sure. Let's delete it.
+            deletedListener.onMenuItemDeleted(item);
+            Toast.makeText(context, "Deleted: " + item.getName(), Toast.LENGTH_SHORT).show();
+        });
+        this.imageLoader = MenuImageLoader.getInstance(context);
+        // Every item has its own permanent ID, which lets the RecyclerView keep track of rows
+        // (and animate them properly) even when the whole list gets swapped out.
+        setHasStableIds(true);
     }
 
     /**
-     * This gets called when the RecyclerView needs a new list item view.
-     * We inflate our `list_item_menu.xml` layout and create a new ViewHolder to hold it.
+     * The stable ID for the row at this position, which is just the menu item's own ID.
      */
-    @NonNull
     @Override
-    public MenuViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item_menu, parent, false);
-        return new MenuViewHolder(view);
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     /**
-     * This is where we bind the data from a `MenuItem` object to the views in a ViewHolder.
-     * It gets called for each item in the list.
+     * This gets called when the RecyclerView needs a new list item view.
+     * We inflate our `list_item_menu.xml` layout, create a new ViewHolder to hold it and hook up
+     * its buttons. The listeners are made once per row view, not once per bind, and they look
+     * up whichever item the row is showing at the moment it's tapped.
      */
+    @NonNull
     @Override
-    public void onBindViewHolder(@NonNull MenuViewHolder holder, int position) {
-        // Grab the item for the current row.
-        MenuItem item = menuItems.get(position);
-
-        // Set the text and images for this list item.
-        holder.name.setText(item.getName());
-        holder.price.setText(String.format(Locale.US, "$%.2f", item.getPrice()));
-        holder.image.setImageResource(item.getImageResId());
+    public MenuViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item_menu, parent, false);
+        MenuViewHolder holder = new MenuViewHolder(view);
 
         // Set up the click listener for the little edit button.
         holder.editButton.setOnClickListener(v -> {
+            MenuItem item = itemFor(holder);
+            if (item == null) {
+                return;
+            }
             // We'll launch the EditMenuItemActivity, passing along all the current item's info.
             Intent intent = new Intent(context, EditMenuItemActivity.class);
             intent.putExtra(EditMenuItemActivity.EXTRA_NAME, item.getName());
-            intent.putExtra(EditMenuItemActivity.EXTRA_PRICE, item.getPrice());
-            intent.putExtra(EditMenuItemActivity.EXTRA_POSITION, holder.getAdapterPosition());
+            intent.putExtra(EditMenuItemActivity.EXTRA_PRICE, item.getPriceCents());
+            intent.putExtra(EditMenuItemActivity.EXTRA_ID, item.getId());
+            intent.putExtra(EditMenuItemActivity.EXTRA_PHOTO_URI, item.getPhotoUri());
             // We cast the context to an Activity to call this method.
             ((Activity) context).startActivityForResult(intent, ManageMenuActivity.EDIT_MENU_ITEM_REQUEST);
         });
 
         // Set up the click listener for the delete button.
         holder.deleteButton.setOnClickListener(v -> {
-            // It's always a good idea to ask the user if they're sure.
-            new AlertDialog.Builder(context)
-                    .setTitle("Delete Item")
-                    .setMessage("Are you sure you want to delete this item?")
-                    .setPositiveButton("Yes", (dialog, which) -> {
-                        // OK, they're sure. Let's delete it.
-                        int currentPosition = holder.getAdapterPosition();
-                        if (currentPosition != RecyclerView.NO_POSITION) {
-                            menuItems.remove(currentPosition);
-                            notifyItemRemoved(currentPosition);
-                            Toast.makeText(v.getContext(), "Deleted: " + item.getName(), Toast.LENGTH_SHORT).show();
-                        }
-                    })
-                    .setNegativeButton("No", null) // If they say no, just close the dialog.
-                    .show();
+            MenuItem item = itemFor(holder);
+            if (item != null) {
+                // It's always a good idea to ask the user if they're sure.
+                deleteDialog.show(item, "Are you sure you want to delete this item?");
+            }
         });
+        return holder;
+    }
+
+    /**
+     * This is where we bind the data from a `MenuItem` object to the views in a ViewHolder.
+     * It gets called for each item in the list. The buttons are already wired up, so all
+     * that's left is the text and the photo.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull MenuViewHolder holder, int position) {
+        // Grab the item for the current row.
+        MenuItem item = getItem(position);
+
+        // Set the text and images for this list item.
+        holder.name.setText(item.getName());
+        holder.price.setText(item.getPriceLabel()); // Already formatted, nothing to build here.
+        // The photo gets decoded off the UI thread. Until it's ready we show the fallback drawable.
+        imageLoader.load(holder.image, item.getPhotoUri(), item.getImageResId());
+    }
+
+    /**
+     * Finds the item a row is showing right now, checked against the row's stable ID so a tap
+     * during an update can't land on the wrong dish.
+     *
+     * @return The item, or null if the row has just been removed.
+     */
+    private MenuItem itemFor(MenuViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION) {
+            return null;
+        }
+        MenuItem item = getItem(position);
+        return item.getId() == holder.getItemId() ? item : null;
     }
 
     /**
-     * Just tells the RecyclerView how many items are in our list.
+     * Called when a row scrolls off screen and is about to be reused. If its photo is still
+     * loading, there's no point finishing it, so we cancel it.
      */
     @Override
-    public int getItemCount() {
-        return menuItems.size();
+    public void onViewRecycled(@NonNull MenuViewHolder holder) {
+        super.onViewRecycled(holder);
+        imageLoader.cancel(holder.image);
     }
 
     /**
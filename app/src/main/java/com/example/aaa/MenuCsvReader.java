@@ -0,0 +1,96 @@
+package com.example.aaa;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a CSV file one row at a time, so even a file with tens of thousands of dishes never has
+ * to be in memory all at once.
+ *
+ * It understands the usual CSV rules: fields are separated by commas, a field can be wrapped in
+ * double quotes (so it can contain commas or line breaks), and "" inside quotes is one quote.
+ * Rows can end in \n or \r\n.
+ */
+public class MenuCsvReader {
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private int peeked = -2; // One character of look-ahead; -2 means "nothing peeked".
+
+    /**
+     * @param reader Where to read from. Wrap it in a BufferedReader, we read a char at a time.
+     */
+    public MenuCsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return The next row's fields, or null at the end of the file. Blank lines are skipped.
+     */
+    public String[] readRow() throws IOException {
+        List<String> fields = new ArrayList<>(4);
+        field.setLength(0);
+        boolean inQuotes = false;
+        boolean sawAnything = false;
+
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (!sawAnything) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields.toArray(new String[0]);
+            }
+            sawAnything = true;
+
+            if (inQuotes) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"'); // An escaped quote.
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (fields.isEmpty() && field.length() == 0) {
+                    sawAnything = false; // A blank line; keep going.
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields.toArray(new String[0]);
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
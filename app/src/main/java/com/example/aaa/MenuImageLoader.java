@@ -0,0 +1,253 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads menu photos into ImageViews without ever decoding on the UI thread.
+ *
+ * Each photo is decoded in the background at roughly the size of the view it's going into
+ * (not at full camera resolution), then kept in two caches: a small in-memory LRU cache for
+ * instant re-binds while scrolling, and a folder of ready-made thumbnails on disk so we don't
+ * have to decode the original again next time the app starts.
+ */
+public class MenuImageLoader {
+
+    private static final String TAG = "MenuImageLoader";
+    private static final String THUMBNAIL_DIR = "menu_thumbnails";
+
+    private static MenuImageLoader instance;
+
+    private final Context appContext;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final File thumbnailDir;
+    // A few threads is plenty; decoding is CPU and disk bound.
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * One load in progress. We hang it off the ImageView's tag so a recycled view can
+     * cancel whatever it was waiting for.
+     */
+    private static class LoadRequest {
+        final String key;
+        Future<?> future;
+
+        LoadRequest(String key) {
+            this.key = key;
+        }
+    }
+
+    private MenuImageLoader(Context context) {
+        appContext = context.getApplicationContext();
+        thumbnailDir = new File(appContext.getCacheDir(), THUMBNAIL_DIR);
+
+        // Use an eighth of the app's memory for bitmaps, measured in kilobytes.
+        int cacheSizeKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        memoryCache = new LruCache<String, Bitmap>(cacheSizeKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+    }
+
+    public static synchronized MenuImageLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new MenuImageLoader(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Shows a menu item's photo in an ImageView. If there's no photo, or while it's still
+     * loading, the fallback drawable is shown instead.
+     *
+     * @param imageView   Where the photo should go.
+     * @param photoUri    The photo's content:// or file:// URI, or null if there isn't one.
+     * @param fallbackRes The drawable to show when there's no photo (yet).
+     */
+    public void load(ImageView imageView, String photoUri, int fallbackRes) {
+        cancel(imageView);
+        if (photoUri == null) {
+            imageView.setImageResource(fallbackRes);
+            return;
+        }
+
+        int width = targetWidth(imageView);
+        int height = targetHeight(imageView, width);
+        String key = photoUri + "@" + width + "x" + height;
+
+        // The quick path: we've already got it in memory.
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            imageView.setImageBitmap(cached);
+            return;
+        }
+
+        imageView.setImageResource(fallbackRes);
+        LoadRequest request = new LoadRequest(key);
+        imageView.setTag(request);
+        request.future = executor.submit(() -> {
+            Bitmap bitmap = loadInBackground(key, Uri.parse(photoUri), width, height);
+            if (bitmap == null || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            memoryCache.put(key, bitmap);
+            mainHandler.post(() -> {
+                // Only show it if the view still wants this exact photo.
+                if (imageView.getTag() == request) {
+                    imageView.setImageBitmap(bitmap);
+                    imageView.setTag(null);
+                }
+            });
+        });
+    }
+
+    /**
+     * Stops any load that's in flight for this view. Call it when a list row gets recycled,
+     * so we don't waste time on a photo nobody will see.
+     */
+    public void cancel(ImageView imageView) {
+        Object tag = imageView.getTag();
+        if (tag instanceof LoadRequest) {
+            Future<?> future = ((LoadRequest) tag).future;
+            if (future != null) {
+                future.cancel(true);
+            }
+            imageView.setTag(null);
+        }
+    }
+
+    // --- Everything below runs on the background threads ---
+
+    private Bitmap loadInBackground(String key, Uri uri, int width, int height) {
+        // Maybe we already made a thumbnail for this on a previous run.
+        File thumbnail = new File(thumbnailDir, hash(key) + ".webp");
+        if (thumbnail.exists()) {
+            Bitmap bitmap = BitmapFactory.decodeFile(thumbnail.getPath());
+            if (bitmap != null) {
+                return bitmap;
+            }
+        }
+
+        Bitmap bitmap = decodeSampled(uri, width, height);
+        if (bitmap != null) {
+            saveThumbnail(thumbnail, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Decodes a photo at the smallest power-of-two scale that still covers the target size.
+     * We read the dimensions first, so we never allocate the full-size image.
+     */
+    private Bitmap decodeSampled(Uri uri, int width, int height) {
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream in = appContext.getContentResolver().openInputStream(uri)) {
+                BitmapFactory.decodeStream(in, null, options);
+            }
+
+            options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, width, height);
+            options.inJustDecodeBounds = false;
+            try (InputStream in = appContext.getContentResolver().openInputStream(uri)) {
+                return BitmapFactory.decodeStream(in, null, options);
+            }
+        } catch (IOException | SecurityException e) {
+            Log.w(TAG, "Couldn't load menu photo " + uri, e);
+            return null;
+        }
+    }
+
+    /**
+     * Works out how much we can shrink the image while staying at least as big as the target.
+     */
+    static int calculateInSampleSize(int sourceWidth, int sourceHeight, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        while (sourceWidth / (sampleSize * 2) >= targetWidth && sourceHeight / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Writes the thumbnail to a temporary file and renames it into place, so a crash halfway
+     * through can never leave a cut-off thumbnail that we'd keep showing. The temporary name is
+     * unique, since both loader threads might be saving the same photo at once.
+     */
+    private void saveThumbnail(File thumbnail, Bitmap bitmap) {
+        if (!thumbnailDir.exists() && !thumbnailDir.mkdirs()) {
+            return;
+        }
+        File temp = null;
+        try {
+            temp = File.createTempFile(thumbnail.getName(), ".tmp", thumbnailDir);
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                if (!bitmap.compress(Bitmap.CompressFormat.WEBP_LOSSY, 80, out)) {
+                    throw new IOException("WebP encoding failed");
+                }
+            }
+            if (!temp.renameTo(thumbnail)) {
+                throw new IOException("Couldn't rename " + temp + " to " + thumbnail);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't save thumbnail", e);
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android device has SHA-1, but just in case.
+            return Integer.toHexString(key.hashCode());
+        }
+    }
+
+    // --- Working out how big the photo needs to be ---
+
+    private int targetWidth(ImageView imageView) {
+        if (imageView.getWidth() > 0) {
+            return imageView.getWidth();
+        }
+        // Not laid out yet, so assume it's as wide as the screen (it is, in our list rows).
+        return imageView.getResources().getDisplayMetrics().widthPixels;
+    }
+
+    private int targetHeight(ImageView imageView, int width) {
+        if (imageView.getHeight() > 0) {
+            return imageView.getHeight();
+        }
+        ViewGroup.LayoutParams params = imageView.getLayoutParams();
+        return params != null && params.height > 0 ? params.height : width;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.aaa;
+
+/**
+ * Checks one row of an imported menu and turns it into a MenuItem. Kept apart from the
+ * importer itself so it's plain Java we can test, and so rows can be checked on several
+ * threads at once (it doesn't share anything).
+ */
+public final class MenuImportRow {
+
+    // Longer than this and it's almost certainly a broken row, not a dish.
+    static final int MAX_NAME_LENGTH = 100;
+
+    private MenuImportRow() {
+        // Just a holder for the static methods below.
+    }
+
+    /**
+     * @param name       The dish name, as read from the file.
+     * @param price      The price as text, e.g. "12.50" or "$12.50".
+     * @param imageResId The drawable every imported dish shows.
+     * @return The new item, or null if the row isn't valid (missing name, bad or negative price).
+     */
+    public static MenuItem toMenuItem(String name, String price, int imageResId) {
+        if (name == null || price == null) {
+            return null;
+        }
+        String trimmedName = name.trim();
+        if (trimmedName.isEmpty() || trimmedName.length() > MAX_NAME_LENGTH) {
+            return null;
+        }
+        long priceCents;
+        try {
+            priceCents = Money.parse(price.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (priceCents < 0) {
+            return null;
+        }
+        return new MenuItem(trimmedName, priceCents, imageResId);
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports a whole menu from a CSV or JSON file in one go.
+ *
+ * The file is read as a stream, a chunk of rows at a time, so its size doesn't matter. Each
+ * chunk is checked on a pool of threads while the next one is being read, and every checked
+ * chunk is saved as a single batch (one write and one sync, see MenuRepository.saveAll). That's
+ * what lets a catalog with tens of thousands of dishes go in within a few seconds.
+ *
+ * Accepted files:
+ * <pre>
+ *   CSV:  name,price            (the header row is optional)
+ *         Pizza Margherita,12.50
+ *   JSON: [{"name": "Pizza Margherita", "price": "12.50"}, ...]
+ *         or {"items": [ ...the same... ]}
+ * </pre>
+ * Rows with no name or a price we can't read are skipped and counted.
+ */
+public class MenuImporter {
+
+    private static final String TAG = "MenuImporter";
+    private static final int CHUNK_ROWS = 1000;
+    private static final int VALIDATOR_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    // How many chunks can be waiting to be checked before we pause reading.
+    private static final int MAX_CHUNKS_IN_FLIGHT = VALIDATOR_THREADS * 2;
+
+    /**
+     * Hears how an import is going. Both methods are called on the main thread.
+     */
+    public interface Listener {
+        /**
+         * @param imported How many dishes have been saved so far.
+         * @param percent  How far through the file we are, or -1 if we can't tell.
+         */
+        void onProgress(int imported, int percent);
+
+        /**
+         * Called once it's all over. Every saved dish is already queued in MenuRepository, so
+         * a loadAll() from here will include them.
+         */
+        void onFinished(Result result);
+    }
+
+    /**
+     * How an import went.
+     */
+    public static class Result {
+        public final int imported;
+        public final int skipped;      // Rows that weren't valid.
+        public final boolean cancelled;
+        public final String error;     // Why the file couldn't be read, or null if it could.
+
+        Result(int imported, int skipped, boolean cancelled, String error) {
+            this.imported = imported;
+            this.skipped = skipped;
+            this.cancelled = cancelled;
+            this.error = error;
+        }
+    }
+
+    /**
+     * An import in progress. Cancelling stops it after the current chunk; dishes already saved
+     * stay saved.
+     */
+    public static class Request {
+        private volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Hands out rows from the file, whatever format it's in.
+     */
+    private interface RowSource {
+        /**
+         * @return {name, price}, or null at the end of the file.
+         */
+        String[] next() throws IOException;
+    }
+
+    private static MenuImporter instance;
+
+    private final Context appContext;
+    private final MenuRepository repository;
+    private final ExecutorService reader = Executors.newSingleThreadExecutor();
+    private final ExecutorService validators = Executors.newFixedThreadPool(VALIDATOR_THREADS);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private MenuImporter(Context context) {
+        appContext = context.getApplicationContext();
+        repository = MenuRepository.getInstance(appContext);
+    }
+
+    public static synchronized MenuImporter getInstance(Context context) {
+        if (instance == null) {
+            instance = new MenuImporter(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Starts importing a file in the background.
+     *
+     * @param source   The file the user picked.
+     * @param listener Hears about progress and the final result, on the main thread.
+     * @return A handle for cancelling the import.
+     */
+    public Request start(Uri source, Listener listener) {
+        Request request = new Request();
+        reader.execute(() -> {
+            Result result = runImport(source, request, listener);
+            mainHandler.post(() -> listener.onFinished(result));
+        });
+        return request;
+    }
+
+    // --- Everything below runs on the background threads ---
+
+    private Result runImport(Uri source, Request request, Listener listener) {
+        int[] counts = new int[2]; // imported, skipped
+        long totalBytes = fileSize(source);
+        try {
+            repository.awaitOpen(); // New dishes mustn't get IDs before the stored ones are known.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(0, 0, true, null);
+        }
+        try (InputStream raw = appContext.getContentResolver().openInputStream(source)) {
+            if (raw == null) {
+                return new Result(0, 0, false, "Couldn't open the file");
+            }
+            CountingInputStream counted = new CountingInputStream(raw);
+            BufferedReader text = new BufferedReader(new InputStreamReader(counted, StandardCharsets.UTF_8), 64 * 1024);
+            RowSource rows = looksLikeJson(text) ? jsonRows(new JsonReader(text)) : csvRows(new MenuCsvReader(text));
+
+            ArrayDeque<Future<List<MenuItem>>> inFlight = new ArrayDeque<>();
+            ArrayDeque<Integer> chunkSizes = new ArrayDeque<>();
+            List<String[]> chunk = new ArrayList<>(CHUNK_ROWS);
+            String[] row;
+            while (!request.isCancelled() && (row = rows.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == CHUNK_ROWS) {
+                    submit(chunk, inFlight, chunkSizes);
+                    chunk = new ArrayList<>(CHUNK_ROWS);
+                    if (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+                        saveNext(inFlight, chunkSizes, counts);
+                        reportProgress(listener, counts[0], counted.count, totalBytes);
+                    }
+                }
+            }
+            if (!request.isCancelled() && !chunk.isEmpty()) {
+                submit(chunk, inFlight, chunkSizes);
+            }
+            // Whatever's been checked still gets saved, even if we were cancelled.
+            while (!inFlight.isEmpty()) {
+                saveNext(inFlight, chunkSizes, counts);
+                reportProgress(listener, counts[0], counted.count, totalBytes);
+            }
+            return new Result(counts[0], counts[1], request.isCancelled(), null);
+        } catch (IOException | IllegalStateException | SecurityException e) {
+            // JsonReader throws IllegalStateException when the JSON isn't shaped like we expect.
+            Log.w(TAG, "Menu import failed", e);
+            return new Result(counts[0], counts[1], false, "That file doesn't look like a menu");
+        } catch (ExecutionException e) {
+            // A chunk blew up while being checked. That's a bug or a row we didn't plan for,
+            // not the user stopping us, so say so rather than calling it a cancel.
+            Log.w(TAG, "Menu import failed while checking rows", e);
+            return new Result(counts[0], counts[1], false, "Something in that file couldn't be imported");
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Menu import was interrupted", e);
+            Thread.currentThread().interrupt();
+            return new Result(counts[0], counts[1], true, null);
+        }
+    }
+
+    private void submit(List<String[]> chunk, ArrayDeque<Future<List<MenuItem>>> inFlight,
+                        ArrayDeque<Integer> chunkSizes) {
+        inFlight.add(validators.submit(() -> {
+            List<MenuItem> valid = new ArrayList<>(chunk.size());
+            for (String[] row : chunk) {
+                MenuItem item = MenuImportRow.toMenuItem(row[0], row[1], R.drawable.ic_launcher_background);
+                if (item != null) {
+                    valid.add(item);
+                }
+            }
+            return valid;
+        }));
+        chunkSizes.add(chunk.size());
+    }
+
+    /**
+     * Waits for the oldest chunk to be checked and saves it, so dishes keep the file's order.
+     */
+    private void saveNext(ArrayDeque<Future<List<MenuItem>>> inFlight, ArrayDeque<Integer> chunkSizes,
+                          int[] counts) throws InterruptedException, ExecutionException {
+        List<MenuItem> valid = inFlight.poll().get();
+        int size = chunkSizes.poll();
+        if (!valid.isEmpty()) {
+            repository.saveAll(valid);
+        }
+        counts[0] += valid.size();
+        counts[1] += size - valid.size();
+    }
+
+    private void reportProgress(Listener listener, int imported, long bytesRead, long totalBytes) {
+        int percent = totalBytes > 0 ? (int) Math.min(100, bytesRead * 100 / totalBytes) : -1;
+        mainHandler.post(() -> listener.onProgress(imported, percent));
+    }
+
+    private long fileSize(Uri source) {
+        try (AssetFileDescriptor fd = appContext.getContentResolver().openAssetFileDescriptor(source, "r")) {
+            return fd != null ? fd.getLength() : -1; // UNKNOWN_LENGTH is -1 too.
+        } catch (IOException | SecurityException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Peeks at the first real character: JSON starts with [ or {, anything else we treat as CSV.
+     * Also drops the byte order mark some spreadsheet apps put at the start of the file.
+     */
+    private static boolean looksLikeJson(BufferedReader text) throws IOException {
+        text.mark(1);
+        if (text.read() != '\uFEFF') {
+            text.reset();
+        }
+        text.mark(4096);
+        int c;
+        do {
+            c = text.read();
+        } while (c == ' ' || c == '\t' || c == '\r' || c == '\n');
+        text.reset();
+        return c == '[' || c == '{';
+    }
+
+    private static RowSource csvRows(MenuCsvReader csv) {
+        boolean[] first = {true};
+        return () -> {
+            String[] fields;
+            while ((fields = csv.readRow()) != null) {
+                if (first[0]) {
+                    first[0] = false;
+                    if (fields[0].trim().equalsIgnoreCase("name")) {
+                        continue; // The header row.
+                    }
+                }
+                return new String[]{fields[0], fields.length > 1 ? fields[1] : null};
+            }
+            return null;
+        };
+    }
+
+    private static RowSource jsonRows(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.BEGIN_OBJECT) {
+            // {"items": [...]}: skip ahead to the array.
+            json.beginObject();
+            while (json.hasNext() && !json.nextName().equals("items")) {
+                json.skipValue();
+            }
+        }
+        json.beginArray();
+        return () -> {
+            if (!json.hasNext()) {
+                return null;
+            }
+            String name = null;
+            String price = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                String key = json.nextName();
+                if (json.peek() == JsonToken.NULL) {
+                    json.skipValue();
+                } else if (key.equals("name")) {
+                    name = json.nextString();
+                } else if (key.equals("price")) {
+                    price = json.nextString(); // Works for 12.5 as well as "12.50".
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            return new String[]{name, price};
+        };
+    }
+
+    /**
+     * Counts the bytes read through it, so we can tell how far through the file we are.
+     * Only the reader thread reads it.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -1,29 +1,79 @@
 package com.example.aaa;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Just a plain old Java object (POJO) to represent a single item on our menu.
  * Nothing fancy here, just a simple data container.
  */
 public class MenuItem {
+    // Hands out a new ID for every item we create, so each one can be told apart from the rest.
+    // It only knows about IDs from earlier runs once the menu has been read back from disk, so
+    // new dishes are created by MenuRepository (or after MenuRepository.awaitOpen()).
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id; // A stable ID that never changes, even if the name or price does.
     private String name;
-    private double price;
-    private int imageResId; // For now, we're just using a local drawable resource ID.
+    private long priceCents; // The price in whole cents (see Money), so it's always exact.
+    private int imageResId; // The drawable we fall back on when there's no photo.
+    private String photoUri; // A real photo of the dish (content:// or file:// URI), or null.
+    private String priceLabel; // The price as the list shows it, e.g. "$12.50".
 
     /**
      * Constructor for creating a new menu item.
      *
      * @param name The name of the dish, like "Margherita Pizza".
-     * @param price The price of the dish.
+     * @param priceCents The price of the dish in cents, e.g. 1250 for $12.50.
      * @param imageResId The local drawable ID for the item's picture.
      */
-    public MenuItem(String name, double price, int imageResId) {
+    public MenuItem(String name, long priceCents, int imageResId) {
+        this(NEXT_ID.getAndIncrement(), name, priceCents, imageResId, null);
+    }
+
+    /**
+     * Constructor for creating a new menu item that has a photo.
+     *
+     * @param name The name of the dish.
+     * @param priceCents The price of the dish in cents, e.g. 1250 for $12.50.
+     * @param imageResId The drawable to show if the photo can't be loaded.
+     * @param photoUri The URI of the dish's photo, or null.
+     */
+    public MenuItem(String name, long priceCents, int imageResId, String photoUri) {
+        this(NEXT_ID.getAndIncrement(), name, priceCents, imageResId, photoUri);
+    }
+
+    /**
+     * Constructor for a new version of an existing item, keeping its ID.
+     *
+     * @param id The ID of the item this replaces.
+     * @param name The name of the dish.
+     * @param priceCents The price of the dish in cents, e.g. 1250 for $12.50.
+     * @param imageResId The drawable to show if the photo can't be loaded.
+     * @param photoUri The URI of the dish's photo, or null.
+     */
+    public MenuItem(long id, String name, long priceCents, int imageResId, String photoUri) {
+        this.id = id;
         this.name = name;
-        this.price = price;
+        this.priceCents = priceCents;
+        this.priceLabel = Money.format(priceCents);
         this.imageResId = imageResId;
+        this.photoUri = photoUri;
+    }
+
+    /**
+     * Makes sure new items never get this ID (or any below it). Called when items with IDs
+     * handed out in an earlier run are loaded back from disk.
+     */
+    static void reserveIdsUpTo(long id) {
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
     }
 
     // --- Just the standard getters and setters below ---
 
+    public long getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
@@ -32,12 +82,21 @@ public class MenuItem {
         this.name = name;
     }
 
-    public double getPrice() {
-        return price;
+    public long getPriceCents() {
+        return priceCents;
     }
 
-    public void setPrice(double price) {
-        this.price = price;
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
+        this.priceLabel = Money.format(priceCents);
+    }
+
+    /**
+     * The price ready to show on screen, like "$12.50". It's worked out whenever the price
+     * changes, so the list doesn't have to format it on every scroll.
+     */
+    public String getPriceLabel() {
+        return priceLabel;
     }
 
     public int getImageResId() {
@@ -47,4 +106,12 @@ public class MenuItem {
     public void setImageResId(int imageResId) {
         this.imageResId = imageResId;
     }
+
+    public String getPhotoUri() {
+        return photoUri;
+    }
+
+    public void setPhotoUri(String photoUri) {
+        this.photoUri = photoUri;
+    }
 }
@@ -0,0 +1,232 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.ImageDecoder;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Turns a photo the user picked from the gallery into a small WebP file of our own.
+ *
+ * Camera photos are often 12 MP or more, far bigger than a menu ever shows them. So on a
+ * background thread we decode the picked photo straight at menu size (ImageDecoder does the
+ * scaling while it decodes, so the full-size image is never in memory), save it as WebP in the
+ * app's files, and hand back a file:// URI for the menu item. After that, the menu only ever
+ * reads our small copy, and it doesn't matter if the original is deleted or we lose access to it.
+ *
+ * Our copies belong to whoever holds the URI: the form until it's saved, then the menu item.
+ * Whoever lets go of one (picking another photo, backing out, deleting the dish) calls
+ * discard(), and sweep() catches anything that slipped through, like a form lost to a crash.
+ */
+public class MenuPhotoIngestor {
+
+    private static final String TAG = "MenuPhotoIngestor";
+    private static final String PHOTO_DIR = "menu_photos";
+    // The longest side of a stored photo. Bigger than any menu row, small enough to stay quick.
+    private static final int MAX_EDGE_PX = 1280;
+    private static final int WEBP_QUALITY = 80;
+    // Files nobody points at are only swept once they're this old, so a photo sitting in an
+    // open, not-yet-saved form is never swept out from under it.
+    private static final long SWEEP_MIN_AGE_MS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Gets the stored photo on the main thread.
+     */
+    public interface OnIngestedListener {
+        /**
+         * @param photoUri The file:// URI of our copy, or null if the photo couldn't be read.
+         * @param preview  The decoded photo, ready to show, or null if it failed.
+         */
+        void onIngested(@Nullable String photoUri, @Nullable Bitmap preview);
+    }
+
+    /**
+     * A photo that's being processed. Cancel it if the screen goes away; the listener won't be
+     * called and the half-made copy is deleted. (A copy that's already been handed over is the
+     * screen's to discard.)
+     */
+    public static class Request {
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private static MenuPhotoIngestor instance;
+
+    private final Context appContext;
+    private final File photoDir;
+    // One at a time: decoding a big photo takes plenty of memory already.
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private MenuPhotoIngestor(Context context) {
+        appContext = context.getApplicationContext();
+        photoDir = new File(appContext.getFilesDir(), PHOTO_DIR);
+    }
+
+    public static synchronized MenuPhotoIngestor getInstance(Context context) {
+        if (instance == null) {
+            instance = new MenuPhotoIngestor(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Shrinks and stores a picked photo in the background.
+     *
+     * @param source   The content:// URI the photo picker gave us.
+     * @param listener Told on the main thread when it's done.
+     * @return A handle for cancelling it.
+     */
+    public Request ingest(Uri source, OnIngestedListener listener) {
+        Request request = new Request();
+        request.future = executor.submit(() -> {
+            if (request.isCancelled()) {
+                return;
+            }
+            Bitmap bitmap = decodeScaled(source);
+            File stored = bitmap != null ? store(bitmap) : null;
+            if (request.isCancelled()) {
+                deleteQuietly(stored);
+                return;
+            }
+            String photoUri = stored != null ? Uri.fromFile(stored).toString() : null;
+            mainHandler.post(() -> {
+                if (request.isCancelled()) {
+                    executor.execute(() -> deleteQuietly(stored)); // Too late to show it, so tidy up.
+                } else {
+                    listener.onIngested(photoUri, stored != null ? bitmap : null);
+                }
+            });
+        });
+        return request;
+    }
+
+    /**
+     * Deletes one of our stored copies in the background, e.g. when it's been replaced or the
+     * form it was picked in was abandoned. Anything that isn't one of ours (no photo, a
+     * content:// URI from an older version) is left alone.
+     */
+    public void discard(@Nullable String photoUri) {
+        File file = storedFile(photoUri);
+        if (file != null) {
+            executor.execute(() -> deleteQuietly(file));
+        }
+    }
+
+    /**
+     * Deletes every stored copy that isn't in the given set and is old enough that no open form
+     * could still be holding it. Blocks, so call it from a background thread.
+     *
+     * @param referenced The photo URIs the menu still uses.
+     */
+    public void sweep(Set<String> referenced) {
+        File[] files = photoDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - SWEEP_MIN_AGE_MS;
+        for (File file : files) {
+            if (file.lastModified() < cutoff && !referenced.contains(Uri.fromFile(file).toString())) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * The file behind a URI, if it's one of our stored copies.
+     */
+    @Nullable
+    private File storedFile(@Nullable String photoUri) {
+        if (photoUri == null) {
+            return null;
+        }
+        Uri uri = Uri.parse(photoUri);
+        if (!"file".equals(uri.getScheme()) || uri.getPath() == null) {
+            return null;
+        }
+        File file = new File(uri.getPath());
+        return photoDir.equals(file.getParentFile()) ? file : null;
+    }
+
+    // --- Everything below runs on the background thread ---
+
+    private Bitmap decodeScaled(Uri source) {
+        try {
+            ImageDecoder.Source imageSource = ImageDecoder.createSource(appContext.getContentResolver(), source);
+            return ImageDecoder.decodeBitmap(imageSource, (decoder, info, src) -> {
+                int width = info.getSize().getWidth();
+                int height = info.getSize().getHeight();
+                int longest = Math.max(width, height);
+                if (longest > MAX_EDGE_PX) {
+                    // Keep the shape, just make the longest side MAX_EDGE_PX.
+                    float scale = (float) MAX_EDGE_PX / longest;
+                    decoder.setTargetSize(Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale)));
+                }
+                // A normal (not hardware) bitmap, since we need to compress it afterwards.
+                decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+            });
+        } catch (IOException | SecurityException e) {
+            Log.w(TAG, "Couldn't read picked photo " + source, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the photo as WebP. It goes to a temporary name first, so a half-written file
+     * never gets a real name.
+     */
+    private File store(Bitmap bitmap) {
+        if (!photoDir.exists() && !photoDir.mkdirs()) {
+            Log.w(TAG, "Couldn't create " + photoDir);
+            return null;
+        }
+        String name = UUID.randomUUID().toString();
+        File temp = new File(photoDir, name + ".tmp");
+        File photo = new File(photoDir, name + ".webp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            if (!bitmap.compress(Bitmap.CompressFormat.WEBP_LOSSY, WEBP_QUALITY, out)) {
+                throw new IOException("WebP encoding failed");
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't save photo", e);
+            deleteQuietly(temp);
+            return null;
+        }
+        if (!temp.renameTo(photo)) {
+            deleteQuietly(temp);
+            return null;
+        }
+        return photo;
+    }
+
+    private static void deleteQuietly(@Nullable File file) {
+        if (file != null && !file.delete() && file.exists()) {
+            Log.w(TAG, "Couldn't delete " + file);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one place that knows how the menu is stored. Every add, edit and delete goes into a
+ * write-ahead log (see MenuWriteAheadLog) on a background thread, so menu changes survive
+ * the app being killed.
+ *
+ * Writes are synced to disk in batches: the first change asks for a sync a moment later, and
+ * anything else that comes in before then rides along with it. The menu is read from disk
+ * once per process and kept in memory after that, so reopening the menu screen is instant.
+ *
+ * New dishes get their IDs here, and edits are applied by ID here, both only once the stored
+ * menu has been read. That way a dish added straight after the app restarts can't be given an
+ * ID that's already taken, and an edit doesn't depend on a screen having loaded the menu yet.
+ *
+ * When a dish is deleted or gets a new photo, its old stored photo is deleted too, but only
+ * once the change has been synced, so a crash can never leave an item pointing at a deleted
+ * file. Each compaction also sweeps away stored photos no item uses any more.
+ */
+public class MenuRepository {
+
+    private static final String TAG = "MenuRepository";
+    // How long we let changes pile up before syncing them all together.
+    private static final long SYNC_DELAY_MS = 100;
+
+    /**
+     * A tiny callback for handing results back. It's always called on the main thread,
+     * so it's safe to touch views from inside it.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private static MenuRepository instance;
+
+    private final MenuWriteAheadLog log;
+    private final MenuPhotoIngestor photos;
+    // A single worker thread keeps the log in the order the changes were made.
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CountDownLatch openLatch = new CountDownLatch(1); // Released once we've tried to open.
+
+    // Only touched on the worker thread.
+    private boolean opened;
+    private boolean usable; // False if the files couldn't be opened, so we don't try to write.
+    private boolean syncScheduled;
+    private final List<String> unusedPhotos = new ArrayList<>(); // To delete after the next sync.
+
+    private MenuRepository(Context context) {
+        log = new MenuWriteAheadLog(context.getFilesDir(), R.drawable.ic_launcher_background);
+        photos = MenuPhotoIngestor.getInstance(context);
+    }
+
+    public static synchronized MenuRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new MenuRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the whole menu, in the order the items were added.
+     */
+    public void loadAll(Callback<List<MenuItem>> callback) {
+        executor.execute(() -> {
+            ensureOpen();
+            List<MenuItem> items = log.getItems();
+            mainHandler.post(() -> callback.onResult(items));
+        });
+    }
+
+    /**
+     * Adds a new dish. The callback gets the saved item, or null if it couldn't be saved.
+     */
+    public void add(String name, long priceCents, String photoUri, Callback<MenuItem> callback) {
+        executor.execute(() -> {
+            MenuItem saved = null;
+            if (ensureOpen()) {
+                // Every stored ID has been reserved by now, so this one is new.
+                MenuItem item = new MenuItem(name, priceCents, R.drawable.ic_launcher_background, photoUri);
+                if (put(item)) {
+                    saved = item;
+                }
+            }
+            MenuItem result = saved;
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * Saves new details for an existing dish, matched by ID. The callback gets the updated
+     * item, or null if the dish has been deleted since or the change couldn't be saved.
+     */
+    public void update(long id, String name, long priceCents, String photoUri, Callback<MenuItem> callback) {
+        executor.execute(() -> {
+            MenuItem saved = null;
+            if (ensureOpen()) {
+                MenuItem previous = log.getItem(id);
+                if (previous != null) {
+                    MenuItem item = new MenuItem(id, name, priceCents, previous.getImageResId(), photoUri);
+                    if (put(item)) {
+                        saved = item;
+                    }
+                }
+            }
+            MenuItem result = saved;
+            mainHandler.post(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * Saves a batch of items in one go: one write and one sync for the lot.
+     */
+    public void saveAll(List<MenuItem> items) {
+        executor.execute(() -> {
+            if (ensureOpen()) {
+                try {
+                    log.putAll(items);
+                    log.sync();
+                } catch (IOException e) {
+                    Log.w(TAG, "Couldn't save " + items.size() + " items", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Blocks until the stored menu has been read. Background threads that create their own
+     * items (like the importer) call this first, so the new IDs can't clash with stored ones.
+     */
+    void awaitOpen() throws InterruptedException {
+        executor.execute(this::ensureOpen);
+        openLatch.await();
+    }
+
+    /**
+     * Deletes an item by ID.
+     */
+    public void delete(long id) {
+        executor.execute(() -> {
+            if (ensureOpen()) {
+                try {
+                    MenuItem previous = log.getItem(id);
+                    log.delete(id);
+                    if (previous != null && previous.getPhotoUri() != null) {
+                        unusedPhotos.add(previous.getPhotoUri());
+                    }
+                    scheduleSync();
+                } catch (IOException e) {
+                    Log.w(TAG, "Couldn't delete item " + id, e);
+                }
+            }
+        });
+    }
+
+    // --- Everything below runs on the worker thread ---
+
+    private boolean ensureOpen() {
+        if (!opened) {
+            opened = true;
+            try {
+                log.open();
+                usable = true;
+                if (log.isNew()) {
+                    // First run: start with some sample dishes so the screen isn't empty.
+                    log.put(new MenuItem("Pizza Margherita", 1250, R.drawable.ic_launcher_background));
+                    log.put(new MenuItem("Caesar Salad", 800, R.drawable.ic_launcher_background));
+                    log.put(new MenuItem("Beef Burger", 1475, R.drawable.ic_launcher_background));
+                    log.sync();
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Couldn't open the menu files", e);
+            }
+            openLatch.countDown();
+        }
+        return usable;
+    }
+
+    /**
+     * Writes a new or changed item, and queues its old photo for deleting if it's been replaced.
+     */
+    private boolean put(MenuItem item) {
+        try {
+            MenuItem previous = log.getItem(item.getId());
+            log.put(item);
+            if (previous != null && previous.getPhotoUri() != null
+                    && !previous.getPhotoUri().equals(item.getPhotoUri())) {
+                unusedPhotos.add(previous.getPhotoUri());
+            }
+            scheduleSync();
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't save " + item.getName(), e);
+            return false;
+        }
+    }
+
+    private void scheduleSync() {
+        if (!syncScheduled) {
+            syncScheduled = true;
+            executor.schedule(this::syncNow, SYNC_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void syncNow() {
+        syncScheduled = false;
+        try {
+            log.sync();
+            // Now nothing on disk points at them any more (unless another item shares one).
+            if (!unusedPhotos.isEmpty()) {
+                Set<String> referenced = referencedPhotos();
+                for (String photoUri : unusedPhotos) {
+                    if (!referenced.contains(photoUri)) {
+                        photos.discard(photoUri);
+                    }
+                }
+                unusedPhotos.clear();
+            }
+            if (log.needsCompaction()) {
+                log.compact();
+                photos.sweep(referencedPhotos());
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't sync menu changes", e);
+        }
+    }
+
+    private Set<String> referencedPhotos() {
+        Set<String> referenced = new HashSet<>();
+        for (MenuItem item : log.getItems()) {
+            if (item.getPhotoUri() != null) {
+                referenced.add(item.getPhotoUri());
+            }
+        }
+        return referenced;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.aaa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A little search index over menu item names, so the search box doesn't have to scan every
+ * item on every keystroke.
+ *
+ * Each name is split into words ("Pizza Margherita" -> "pizza", "margherita") and every word
+ * points back at the items that contain it. The words are kept sorted, which means finding all
+ * the words that start with "mar" is a single range lookup. A query like "mar piz" matches items
+ * that have a word starting with "mar" AND a word starting with "piz".
+ *
+ * The index is updated one item at a time as things are added, edited or deleted.
+ */
+public class MenuSearchIndex {
+
+    // Word -> IDs of the items whose name contains that word.
+    private final TreeMap<String, Set<Long>> itemsByWord = new TreeMap<>();
+    // Item ID -> the words we indexed it under, so we know what to clean up when it changes.
+    private final Map<Long, List<String>> wordsByItem = new HashMap<>();
+
+    /**
+     * Adds an item to the index, or re-indexes it if its name has changed.
+     */
+    public void put(long id, String name) {
+        remove(id);
+        List<String> words = SearchText.tokenize(name);
+        wordsByItem.put(id, words);
+        for (String word : words) {
+            Set<Long> ids = itemsByWord.get(word);
+            if (ids == null) {
+                ids = new HashSet<>();
+                itemsByWord.put(word, ids);
+            }
+            ids.add(id);
+        }
+    }
+
+    /**
+     * Handy for building the index in one go.
+     */
+    public void putAll(Collection<MenuItem> items) {
+        for (MenuItem item : items) {
+            put(item.getId(), item.getName());
+        }
+    }
+
+    /**
+     * Takes an item out of the index, e.g. after it's been deleted.
+     */
+    public void remove(long id) {
+        List<String> words = wordsByItem.remove(id);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Set<Long> ids = itemsByWord.get(word);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    itemsByWord.remove(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds every item whose name has a word starting with each word of the query.
+     * Case and accents don't matter, so "creme" finds "Crème Brûlée".
+     *
+     * @return The matching item IDs, in ascending order (which is the order they were created).
+     */
+    public List<Long> search(String query) {
+        List<String> queryWords = SearchText.tokenize(query);
+        if (queryWords.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> matches = null;
+        for (String queryWord : queryWords) {
+            Set<Long> wordMatches = new HashSet<>();
+            // Every indexed word from "mar" up to (but not including) "mar\uFFFF" starts with "mar".
+            SortedMap<String, Set<Long>> range = itemsByWord.subMap(queryWord, SearchText.prefixUpperBound(queryWord));
+            for (Set<Long> ids : range.values()) {
+                wordMatches.addAll(ids);
+            }
+
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                matches.retainAll(wordMatches);
+            }
+            if (matches.isEmpty()) {
+                break; // No point looking at the other words.
+            }
+        }
+
+        List<Long> sorted = new ArrayList<>(matches);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * How many items are in the index.
+     */
+    public int size() {
+        return wordsByItem.size();
+    }
+}
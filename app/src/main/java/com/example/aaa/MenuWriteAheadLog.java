@@ -0,0 +1,295 @@
+package com.example.aaa;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the menu safe on disk, even if the app is killed halfway through an edit.
+ *
+ * Every add, edit and delete is appended to a log file as a small record. Appending is cheap,
+ * and the caller decides when to sync() (the repository does it in batches), so a burst of
+ * edits costs one fsync instead of one each. Every so often the whole menu is written out as a
+ * snapshot and the log starts again from empty, so opening the menu only ever means reading
+ * the snapshot plus a short log.
+ *
+ * Each record is: 4-byte length, 4-byte CRC32, then the payload. If the app dies mid-write, the
+ * last record is incomplete or fails its CRC; we stop there and cut it off, so we lose at most
+ * the edits that hadn't been synced yet.
+ *
+ * This class isn't thread-safe; MenuRepository only ever uses it from its worker thread.
+ */
+public class MenuWriteAheadLog {
+
+    private static final String SNAPSHOT_FILE = "menu.snapshot";
+    private static final String LOG_FILE = "menu.wal";
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int RECORD_HEADER_BYTES = 8;
+    // Anything bigger than this can't be a real record, so it must be a torn write.
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    // Compact once the log has this many records more than the menu has items.
+    private static final int COMPACT_AFTER_RECORDS = 200;
+
+    private final File snapshotFile;
+    private final File logFile;
+    private final int imageResId; // The drawable every loaded item falls back on.
+
+    private final Map<Long, MenuItem> items = new LinkedHashMap<>();
+    private FileChannel log;
+    private int logRecords;
+    private boolean isNew;
+
+    /**
+     * @param directory  Where the snapshot and log files live.
+     * @param imageResId The fallback drawable for loaded items. Resource IDs can change between
+     *                   builds, so we don't store them.
+     */
+    public MenuWriteAheadLog(File directory, int imageResId) {
+        this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+        this.logFile = new File(directory, LOG_FILE);
+        this.imageResId = imageResId;
+    }
+
+    /**
+     * Reads the snapshot, replays the log on top of it, and gets ready for new records.
+     *
+     * @return The menu as it was after the last synced edit, in the order items were added.
+     */
+    public Map<Long, MenuItem> open() throws IOException {
+        isNew = !snapshotFile.exists() && !logFile.exists();
+        items.clear();
+        readRecords(snapshotFile);
+        long goodLength = readRecords(logFile);
+
+        log = new RandomAccessFile(logFile, "rw").getChannel();
+        if (log.size() > goodLength) {
+            log.truncate(goodLength); // Cut off a half-written record from a crash.
+            log.force(false);
+        }
+        log.position(goodLength);
+
+        // New items have to get IDs we haven't used yet.
+        for (long id : items.keySet()) {
+            MenuItem.reserveIdsUpTo(id);
+        }
+        return new LinkedHashMap<>(items);
+    }
+
+    /**
+     * The menu as it stands, including edits that haven't been synced yet.
+     */
+    public List<MenuItem> getItems() {
+        return new ArrayList<>(items.values());
+    }
+
+    /**
+     * One item by ID, or null if there's no such item.
+     */
+    public MenuItem getItem(long id) {
+        return items.get(id);
+    }
+
+    /**
+     * Whether there was nothing on disk when we opened, i.e. this is the first run.
+     */
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Records a new or changed item. It isn't durable until the next sync().
+     */
+    public void put(MenuItem item) throws IOException {
+        append(encodePut(item));
+        items.put(item.getId(), item);
+    }
+
+    /**
+     * Records a whole batch of items with a single write, which is much quicker than putting
+     * them one by one when there are thousands (like during an import).
+     */
+    public void putAll(List<MenuItem> batch) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(batch.size() * 64);
+        for (MenuItem item : batch) {
+            records.write(frame(encodePut(item)));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        logRecords += batch.size();
+        for (MenuItem item : batch) {
+            items.put(item.getId(), item);
+        }
+    }
+
+    /**
+     * Records that an item was deleted. It isn't durable until the next sync().
+     */
+    public void delete(long id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_DELETE);
+        out.writeLong(id);
+        append(bytes.toByteArray());
+        items.remove(id);
+    }
+
+    /**
+     * Makes sure every record so far is on disk.
+     */
+    public void sync() throws IOException {
+        log.force(false);
+    }
+
+    /**
+     * Whether the log has grown enough that it's worth folding into a fresh snapshot.
+     */
+    public boolean needsCompaction() {
+        return logRecords > items.size() + COMPACT_AFTER_RECORDS;
+    }
+
+    /**
+     * Writes the current menu as the new snapshot and empties the log. The snapshot is synced
+     * and renamed into place before the log is cleared, so a crash at any point still leaves
+     * everything on disk.
+     */
+    public void compact() throws IOException {
+        File temp = new File(snapshotFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            FileChannel channel = out.getChannel();
+            for (MenuItem item : items.values()) {
+                writeRecord(channel, encodePut(item));
+            }
+            channel.force(false);
+        }
+        if (!temp.renameTo(snapshotFile)) {
+            throw new IOException("Couldn't replace " + snapshotFile);
+        }
+        log.truncate(0);
+        log.position(0);
+        log.force(false);
+        logRecords = 0;
+    }
+
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    private void append(byte[] payload) throws IOException {
+        writeRecord(log, payload);
+        logRecords++;
+    }
+
+    private static void writeRecord(FileChannel channel, byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(frame(payload));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Puts the length and CRC in front of a payload, ready to be written.
+     */
+    private static byte[] frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length)
+                .putInt(payload.length).putInt((int) crc.getValue()).put(payload)
+                .array();
+    }
+
+    private static byte[] encodePut(MenuItem item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_PUT);
+        out.writeLong(item.getId());
+        out.writeUTF(item.getName());
+        out.writeLong(item.getPriceCents());
+        out.writeBoolean(item.getPhotoUri() != null);
+        if (item.getPhotoUri() != null) {
+            out.writeUTF(item.getPhotoUri());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Applies every good record in a file to {@link #items}.
+     *
+     * @return How many bytes of the file were good records.
+     */
+    private long readRecords(File file) throws IOException {
+        long goodLength = 0;
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break; // Clean end of file.
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                try {
+                    int expectedCrc = in.readInt();
+                    in.readFully(payload);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != expectedCrc) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break; // The app died while writing this one.
+                }
+                apply(payload);
+                goodLength += RECORD_HEADER_BYTES + length;
+                records++;
+            }
+        } catch (FileNotFoundException e) {
+            return 0;
+        }
+        if (file == logFile) {
+            logRecords = records;
+        }
+        return goodLength;
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        long id = in.readLong();
+        if (op == OP_PUT) {
+            String name = in.readUTF();
+            long priceCents = in.readLong();
+            String photoUri = in.readBoolean() ? in.readUTF() : null;
+            items.put(id, new MenuItem(id, name, priceCents, imageResId, photoUri));
+        } else if (op == OP_DELETE) {
+            items.remove(id);
+        }
+    }
+}
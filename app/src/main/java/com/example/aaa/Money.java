@@ -0,0 +1,156 @@
+package com.example.aaa;
+
+/**
+ * Helpers for working with money as a whole number of cents, stored in a plain long.
+ *
+ * Doubles can't hold most prices exactly (0.10 is really 0.1000000000000000055...), so adding
+ * up lots of them slowly drifts. BigDecimal gets it right but allocates on every operation.
+ * Whole cents in a long are exact, quick, and don't allocate at all. Everything here is static
+ * and works on those longs directly; there's no Money object to create.
+ */
+public final class Money {
+
+    private Money() {
+        // Just a holder for the static methods below.
+    }
+
+    /**
+     * Turns something like "12.5", "12.50", "$12" or "-3.20" into cents.
+     * At most two decimal places are allowed, since we don't deal in fractions of a cent.
+     *
+     * @throws NumberFormatException If the text isn't a price we understand, or is too big to hold.
+     */
+    public static long parse(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        // Skip surrounding spaces.
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+
+        boolean negative = false;
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            negative = text.charAt(start) == '-';
+            start++;
+        }
+        if (start < end && text.charAt(start) == '$') {
+            start++;
+        }
+
+        try {
+            long cents = parseDigits(text, start, end);
+            return negative ? -cents : cents;
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Price too large");
+        }
+    }
+
+    private static long parseDigits(CharSequence text, int start, int end) {
+        long cents = 0;
+        int digits = 0;
+        int decimals = -1; // -1 until we've seen the decimal point.
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (decimals >= 0 && ++decimals > 2) {
+                    throw new NumberFormatException("Too many decimal places: " + text);
+                }
+                cents = Math.addExact(Math.multiplyExact(cents, 10), c - '0');
+                digits++;
+            } else {
+                throw new NumberFormatException("Not a price: " + text);
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a price: " + text);
+        }
+
+        // Scale up whatever decimals were missing, e.g. "12.5" -> 1250, "12" -> 1200.
+        for (int i = Math.max(decimals, 0); i < 2; i++) {
+            cents = Math.multiplyExact(cents, 10);
+        }
+        return cents;
+    }
+
+    /**
+     * Shows an amount with a dollar sign, like "$12.50".
+     */
+    public static String format(long cents) {
+        return appendFormatted(new StringBuilder(12), cents).toString();
+    }
+
+    /**
+     * Writes an amount like "$12.50" onto the end of a builder. Handy for building up receipts
+     * or totals with one reusable builder and no extra garbage.
+     */
+    public static StringBuilder appendFormatted(StringBuilder builder, long cents) {
+        builder.append('$');
+        return appendPlain(builder, cents);
+    }
+
+    /**
+     * Shows an amount without the dollar sign, like "12.50". This is what goes into an
+     * editable price field, since it parses straight back again.
+     */
+    public static String toPlainString(long cents) {
+        return appendPlain(new StringBuilder(12), cents).toString();
+    }
+
+    private static StringBuilder appendPlain(StringBuilder builder, long cents) {
+        if (cents < 0) {
+            builder.append('-');
+        }
+        // Work with the negative value so Long.MIN_VALUE doesn't overflow.
+        long negated = cents < 0 ? cents : -cents;
+        int remainder = (int) -(negated % 100);
+        builder.append(-(negated / 100)).append('.');
+        return builder.append((char) ('0' + remainder / 10)).append((char) ('0' + remainder % 10));
+    }
+
+    // --- Arithmetic. These throw ArithmeticException rather than silently overflowing. ---
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * The price of a number of the same thing, e.g. three burgers.
+     */
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * A percentage of an amount, e.g. tax or a price change, in basis points (hundredths of a
+     * percent, so 8.25% is 825). Half a cent or more rounds away from zero.
+     */
+    public static long percentOf(long cents, int basisPoints) {
+        long scaled = Math.multiplyExact(cents, basisPoints);
+        long whole = scaled / 10_000;
+        long leftover = scaled % 10_000;
+        if (Math.abs(leftover) >= 5_000) {
+            whole += Long.signum(scaled);
+        }
+        return whole;
+    }
+
+    /**
+     * Adds up the prices of a bunch of menu items.
+     */
+    public static long total(Iterable<MenuItem> items) {
+        long total = 0;
+        for (MenuItem item : items) {
+            total = Math.addExact(total, item.getPriceCents());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.aaa;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Turns passwords into salted PBKDF2 hashes, so we never have to store the password itself.
+ *
+ * PBKDF2 is slow on purpose (that's what makes guessing expensive), so only ever call this
+ * from a background thread. The number of rounds is stored next to each hash, which means we
+ * can turn it up later without breaking anyone's existing password.
+ */
+public final class PasswordHasher {
+
+    // How many PBKDF2 rounds new hashes use. Roughly a tenth of a second on a mid-range phone.
+    public static final int DEFAULT_ITERATIONS = 120_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private PasswordHasher() {
+        // Just a holder for the static methods below.
+    }
+
+    /**
+     * A fresh random salt. Every account gets its own, so identical passwords hash differently.
+     */
+    public static byte[] newSalt() {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return salt;
+    }
+
+    /**
+     * Hashes a password with the given salt and number of rounds.
+     */
+    public static byte[] hash(char[] password, byte[] salt, int iterations) {
+        KeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // Every Android version we support has PBKDF2WithHmacSHA256.
+            throw new IllegalStateException("PBKDF2 isn't available", e);
+        }
+    }
+
+    /**
+     * Checks a password against a stored hash. The comparison takes the same time however many
+     * bytes match, so it doesn't leak how close a guess was.
+     */
+    public static boolean verify(char[] password, byte[] salt, int iterations, byte[] expectedHash) {
+        return MessageDigest.isEqual(hash(password, salt, iterations), expectedHash);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.aaa;
+
+import androidx.annotation.Nullable;
+
+/**
+ * One rule a new password has to pass, e.g. "at least 6 characters" or "not a known leaked
+ * password". Rules get plugged into a PasswordStrengthScorer, which runs them in order.
+ *
+ * Rules run on every keystroke, so they should return one of their own constant messages
+ * rather than building a new string each time.
+ */
+public interface PasswordRule {
+
+    /**
+     * Checks the password.
+     *
+     * @param password The password as typed. Don't hang on to it; it may be a live Editable.
+     * @param stats    What the scorer already worked out about it in its single pass.
+     * @return null if the password is fine, otherwise the error message to show.
+     */
+    @Nullable
+    String check(CharSequence password, PasswordStats stats);
+
+    /**
+     * The simplest rule: the password has to be at least this long.
+     */
+    static PasswordRule minimumLength(int minLength, String message) {
+        return (password, stats) -> stats.length < minLength ? message : null;
+    }
+}
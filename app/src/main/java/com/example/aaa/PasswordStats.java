@@ -0,0 +1,41 @@
+package com.example.aaa;
+
+/**
+ * What's in a password: how long it is and how many of each kind of character it has.
+ * The scorer fills one of these in with a single pass over the text and reuses it on every
+ * keystroke, so it's mutable on purpose.
+ */
+public final class PasswordStats {
+
+    // The characters that count as "special" for the strength meter.
+    static final String SPECIAL_CHARACTERS = "@#$%^&+=";
+
+    public int length;
+    public int digits;
+    public int uppercase;
+    public int lowercase;
+    public int special; // Only the ones in SPECIAL_CHARACTERS.
+
+    /**
+     * Counts everything in one go over the characters.
+     */
+    void scan(CharSequence password) {
+        length = password.length();
+        digits = 0;
+        uppercase = 0;
+        lowercase = 0;
+        special = 0;
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c >= 'A' && c <= 'Z') {
+                uppercase++;
+            } else if (c >= 'a' && c <= 'z') {
+                lowercase++;
+            } else if (SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+                special++;
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.aaa;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores a password for the strength meter and checks it against a list of rules.
+ *
+ * Everything comes from one scan over the characters (no regexes), and the same objects are
+ * reused every time, so checking a password on each keystroke doesn't create any garbage.
+ * Call analyze() when the text changes, then read the score and any problem from it.
+ *
+ * The score is out of 100: 25 points each for being 8+ characters long, having a digit,
+ * having an uppercase letter, and having one of the special characters @#$%^&+=.
+ */
+public class PasswordStrengthScorer {
+
+    public static final int MAX_SCORE = 100;
+    private static final int POINTS_PER_CHECK = 25;
+    private static final int GOOD_LENGTH = 8;
+
+    private final List<PasswordRule> rules = new ArrayList<>();
+    private final PasswordStats stats = new PasswordStats();
+    private int score;
+    @Nullable
+    private String problem;
+
+    /**
+     * Adds a rule. They're checked in the order they were added, and the first one that fails
+     * is the one we report.
+     */
+    public PasswordStrengthScorer addRule(PasswordRule rule) {
+        rules.add(rule);
+        return this;
+    }
+
+    /**
+     * Works out the score and checks the rules for a new version of the password.
+     */
+    public void analyze(CharSequence password) {
+        stats.scan(password);
+
+        score = 0;
+        if (stats.length >= GOOD_LENGTH) score += POINTS_PER_CHECK;
+        if (stats.digits > 0) score += POINTS_PER_CHECK;
+        if (stats.uppercase > 0) score += POINTS_PER_CHECK;
+        if (stats.special > 0) score += POINTS_PER_CHECK;
+
+        problem = null;
+        for (int i = 0; i < rules.size(); i++) { // Index loop, so there's no iterator to allocate.
+            problem = rules.get(i).check(password, stats);
+            if (problem != null) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * The strength from the last analyze(), between 0 and 100.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * The first rule the last password broke, or null if it passed them all.
+     */
+    @Nullable
+    public String getProblem() {
+        return problem;
+    }
+
+    public boolean isAcceptable() {
+        return problem == null;
+    }
+
+    public PasswordStats getStats() {
+        return stats;
+    }
+}
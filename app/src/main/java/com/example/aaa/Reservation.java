@@ -1,15 +1,32 @@
 package com.example.aaa;
 
+import java.util.Comparator;
+
 /**
  * A simple data class to hold all the info for a single customer reservation.
  * Just a basic container for our reservation details.
  */
 public class Reservation {
+
+    /**
+     * Sorts reservations by when they start, oldest first. Ties are broken by ID so the
+     * order is always the same. It's just two int/long compares, no string parsing.
+     */
+    public static final Comparator<Reservation> BY_SLOT = (a, b) -> {
+        int bySlot = Integer.compare(a.slot, b.slot);
+        return bySlot != 0 ? bySlot : Long.compare(a.id, b.id);
+    };
+
+    private long id; // The database row ID. Zero means it hasn't been saved yet.
     private String customerName;
-    private String date; // We're just storing this as a string, e.g., "2024-10-28"
-    private String time; // And this as a string, too, e.g., "19:30"
+    // When the booking starts, packed into minutes since 1970-01-01 (see ReservationTime).
+    private int slot;
     private int tableNumber;
 
+    // What the list row shows, worked out whenever the data changes rather than on every bind.
+    private String dateTimeLabel;
+    private String tableLabel;
+
     /**
      * Constructor for creating a new reservation.
      *
@@ -19,14 +36,34 @@ public class Reservation {
      * @param tableNumber The table they've been assigned.
      */
     public Reservation(String customerName, String date, String time, int tableNumber) {
+        this(customerName, ReservationTime.toEpochMinute(date, time), tableNumber);
+    }
+
+    /**
+     * Constructor for when we already have the packed start time, e.g. from the database.
+     *
+     * @param customerName The name of the person who booked.
+     * @param slot When the booking starts, in epoch minutes.
+     * @param tableNumber The table they've been assigned.
+     */
+    public Reservation(String customerName, int slot, int tableNumber) {
         this.customerName = customerName;
-        this.date = date;
-        this.time = time;
+        this.slot = slot;
         this.tableNumber = tableNumber;
+        this.dateTimeLabel = DisplayLabels.dateTime(slot);
+        this.tableLabel = DisplayLabels.table(tableNumber);
     }
 
     // --- Just the standard getters and setters below ---
 
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
     public String getCustomerName() {
         return customerName;
     }
@@ -35,20 +72,31 @@ public class Reservation {
         this.customerName = customerName;
     }
 
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+        this.dateTimeLabel = DisplayLabels.dateTime(slot);
+    }
+
+    // The date and time getters are just views over the packed slot.
+
     public String getDate() {
-        return date;
+        return ReservationTime.formatDate(slot);
     }
 
     public void setDate(String date) {
-        this.date = date;
+        setSlot(ReservationTime.toEpochMinute(date, getTime()));
     }
 
     public String getTime() {
-        return time;
+        return ReservationTime.formatTime(slot);
     }
 
     public void setTime(String time) {
-        this.time = time;
+        setSlot(ReservationTime.toEpochMinute(getDate(), time));
     }
 
     public int getTableNumber() {
@@ -57,5 +105,22 @@ public class Reservation {
 
     public void setTableNumber(int tableNumber) {
         this.tableNumber = tableNumber;
+        this.tableLabel = DisplayLabels.table(tableNumber);
+    }
+
+    // --- Ready-made text for the list row ---
+
+    /**
+     * The start date and time, as "YYYY-MM-DD HH:MM".
+     */
+    public String getDateTimeLabel() {
+        return dateTimeLabel;
+    }
+
+    /**
+     * The table, as "Table: N".
+     */
+    public String getTableLabel() {
+        return tableLabel;
     }
 }
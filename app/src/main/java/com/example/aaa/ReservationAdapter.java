@@ -1,7 +1,6 @@
 package com.example.aaa;
 
 import android.app.Activity;
-import android.app.AlertDialog;
 import android.content.Context;
 import android.content.Intent;
 import android.view.LayoutInflater;
@@ -12,94 +11,180 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.List;
-
 /**
- * This is the adapter for our reservations RecyclerView. It takes our list of `Reservation`
- * objects and maps them to the list items we see on the screen.
+ * This is the adapter for our reservations RecyclerView. It binds against a
+ * `ReservationPager`, so only the pages around the current scroll position are ever in memory.
+ * Rows whose page hasn't arrived yet are shown as blank placeholders until it does.
  */
 public class ReservationAdapter extends RecyclerView.Adapter<ReservationAdapter.ReservationViewHolder> {
 
-    private final List<Reservation> reservations; // The data we're working with.
+    /**
+     * Lets the screen know a reservation was cancelled, so it can remove it from storage and
+     * refresh the list.
+     */
+    public interface OnReservationCancelledListener {
+        void onReservationCancelled(Reservation reservation);
+    }
+
+    /**
+     * How we tell whether two reservations are the same booking, and whether it has changed.
+     * The pager uses this when diffing a refreshed page against the old one.
+     */
+    public static final DiffUtil.ItemCallback<Reservation> DIFF_CALLBACK = new DiffUtil.ItemCallback<Reservation>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Reservation oldItem, @NonNull Reservation newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Reservation oldItem, @NonNull Reservation newItem) {
+            return oldItem.getSlot() == newItem.getSlot()
+                    && oldItem.getTableNumber() == newItem.getTableNumber()
+                    && oldItem.getCustomerName().equals(newItem.getCustomerName());
+        }
+    };
+
+    private final ReservationPager pager;       // The windowed data we're working with.
     private final Context context;              // We need this to launch other screens.
+    private final ConfirmDialog<Reservation> cancelDialog; // One dialog, reused for every row.
 
     /**
      * A basic constructor to get the data we need.
      *
      * @param context The activity this adapter is being used in.
-     * @param reservations The list of reservations to display.
+     * @param repository Where the pager fetches its pages from.
+     * @param cancelledListener Who to tell when a reservation gets cancelled.
      */
-    public ReservationAdapter(Context context, List<Reservation> reservations) {
+    public ReservationAdapter(Context context, ReservationRepository repository,
+                              OnReservationCancelledListener cancelledListener) {
         this.context = context;
-        this.reservations = reservations;
+        this.pager = new ReservationPager(repository, this);
+        this.cancelDialog = new ConfirmDialog<>(context, "Cancel Reservation", reservation -> {
+            // The user is sure. Let's remove the reservation.
+            cancelledListener.onReservationCancelled(reservation);
+            Toast.makeText(context, "Cancelled reservation for " + reservation.getCustomerName(), Toast.LENGTH_SHORT).show();
+        });
+        // No stable IDs here: a row that hasn't loaded has no ID yet, and asking the pager for
+        // one would load pages during layout. The pager reports exactly what changed instead.
     }
 
     /**
-     * This gets called when the RecyclerView needs to create a new list item view.
-     * We just inflate our layout for a single reservation item.
+     * Reloads the list from the repository. Call this whenever the stored data changes.
      */
-    @NonNull
-    @Override
-    public ReservationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item_reservation, parent, false);
-        return new ReservationViewHolder(view);
+    public void refresh() {
+        pager.refresh();
     }
 
     /**
-     * This is where we connect the data from a `Reservation` object to the actual views
-     * in our list item.
+     * Narrows the list down to the reservations matching a filter (or shows them all again
+     * with ReservationFilter.ALL).
      */
-    @Override
-    public void onBindViewHolder(@NonNull ReservationViewHolder holder, int position) {
-        // Get the reservation for the current row.
-        Reservation reservation = reservations.get(position);
+    public void setFilter(ReservationFilter filter) {
+        pager.setFilter(filter);
+    }
 
-        // Set the customer's name, the date/time, and the table number.
-        holder.customerName.setText(reservation.getCustomerName());
-        holder.dateTime.setText(String.format("%s %s", reservation.getDate(), reservation.getTime()));
-        holder.tableNumber.setText(String.format("Table: %d", reservation.getTableNumber()));
+    public ReservationFilter getFilter() {
+        return pager.getFilter();
+    }
+
+    /**
+     * This gets called when the RecyclerView needs to create a new list item view.
+     * We inflate our layout for a single reservation item and hook up its click listeners.
+     * The listeners are made once per row view, not once per bind, and they look up whichever
+     * reservation the row is showing at the moment it's tapped.
+     */
+    @NonNull
+    @Override
+    public ReservationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item_reservation, parent, false);
+        ReservationViewHolder holder = new ReservationViewHolder(view);
 
         // If the user taps on the main part of the item, we'll open the edit screen.
         holder.itemView.setOnClickListener(v -> {
+            Reservation reservation = reservationFor(holder);
+            if (reservation == null) {
+                return; // Still a placeholder, or on its way out.
+            }
             Intent intent = new Intent(context, EditReservationActivity.class);
             // We pass all the reservation's info to the edit screen so it can pre-fill the form.
             intent.putExtra(EditReservationActivity.EXTRA_NAME, reservation.getCustomerName());
             intent.putExtra(EditReservationActivity.EXTRA_DATE, reservation.getDate());
             intent.putExtra(EditReservationActivity.EXTRA_TIME, reservation.getTime());
             intent.putExtra(EditReservationActivity.EXTRA_TABLE, reservation.getTableNumber());
-            intent.putExtra(EditReservationActivity.EXTRA_POSITION, holder.getAdapterPosition());
+            intent.putExtra(EditReservationActivity.EXTRA_ID, reservation.getId());
             // We start it for a result, expecting to get the updated data back.
             ((Activity) context).startActivityForResult(intent, ManageReservationsActivity.EDIT_RESERVATION_REQUEST);
         });
 
         // Handle the click on the "Cancel" button.
         holder.cancelButton.setOnClickListener(v -> {
-            // Always a good idea to confirm before doing something destructive.
-            new AlertDialog.Builder(context)
-                    .setTitle("Cancel Reservation")
-                    .setMessage("Are you sure you want to cancel this reservation?")
-                    .setPositiveButton("Yes", (dialog, which) -> {
-                        // The user is sure. Let's remove the reservation.
-                        int currentPosition = holder.getAdapterPosition();
-                        if (currentPosition != RecyclerView.NO_POSITION) {
-                            reservations.remove(currentPosition);
-                            notifyItemRemoved(currentPosition);
-                            Toast.makeText(context, "Cancelled reservation for " + reservation.getCustomerName(), Toast.LENGTH_SHORT).show();
-                        }
-                    })
-                    .setNegativeButton("No", null) // If they say no, we don't do anything.
-                    .show();
+            Reservation reservation = reservationFor(holder);
+            if (reservation != null) {
+                // Always a good idea to confirm before doing something destructive.
+                cancelDialog.show(reservation, "Are you sure you want to cancel this reservation?");
+            }
         });
+        return holder;
+    }
+
+    /**
+     * This is where we connect the data from a `Reservation` object to the actual views
+     * in our list item. The click listeners are already in place, so it's just text.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ReservationViewHolder holder, int position) {
+        // Get the reservation for the current row.
+        Reservation reservation = pager.get(position);
+        if (reservation == null) {
+            // Its page is still on the way, so just show an empty row for a moment.
+            bindPlaceholder(holder);
+            return;
+        }
+        holder.boundId = reservation.getId();
+        holder.cancelButton.setEnabled(true);
+
+        // Set the customer's name, the date/time, and the table number. The labels were built
+        // when the page was loaded (off the UI thread), so this is just handing over strings.
+        holder.customerName.setText(reservation.getCustomerName());
+        holder.dateTime.setText(reservation.getDateTimeLabel());
+        holder.tableNumber.setText(reservation.getTableLabel());
+    }
+
+    /**
+     * Finds the reservation a row is showing right now. We check it against the one the row was
+     * last bound to, so a tap on a row that's mid-update can never act on some other booking.
+     *
+     * @return The reservation, or null if the row is a placeholder or has been removed.
+     */
+    private Reservation reservationFor(ReservationViewHolder holder) {
+        int position = holder.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION) {
+            return null;
+        }
+        Reservation reservation = pager.get(position);
+        return reservation != null && reservation.getId() == holder.boundId ? reservation : null;
+    }
+
+    /**
+     * Clears out a row while we wait for its data to load.
+     */
+    private void bindPlaceholder(ReservationViewHolder holder) {
+        holder.boundId = RecyclerView.NO_ID;
+        holder.customerName.setText(null);
+        holder.dateTime.setText(null);
+        holder.tableNumber.setText(null);
+        holder.cancelButton.setEnabled(false);
     }
 
     /**
-     * Tells the RecyclerView how many items are in our list.
+     * Tells the RecyclerView how many items are in our list, loaded or not.
      */
     @Override
     public int getItemCount() {
-        return reservations.size();
+        return pager.size();
     }
 
     /**
@@ -112,6 +197,7 @@ public class ReservationAdapter extends RecyclerView.Adapter<ReservationAdapter.
         TextView dateTime;
         TextView tableNumber;
         Button cancelButton;
+        long boundId = RecyclerView.NO_ID; // The reservation this row is showing, if it's loaded.
 
         public ReservationViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -0,0 +1,142 @@
+package com.example.aaa;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Creates and opens the little SQLite database that holds all our reservations.
+ * The indexes are the important bit: they let us sort by time and look up a table's
+ * bookings without scanning every row we've ever stored.
+ */
+public class ReservationDbHelper extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "reservations.db";
+    // Version 2 swapped the text date/time columns for a single packed slot.
+    // Version 3 added the customer-name word index.
+    private static final int DATABASE_VERSION = 3;
+
+    // Table and column names, so we don't have magic strings all over the place.
+    public static final String TABLE_RESERVATIONS = "reservations";
+    public static final String COLUMN_ID = "_id";
+    public static final String COLUMN_CUSTOMER_NAME = "customer_name";
+    public static final String COLUMN_SLOT = "slot"; // Start time in epoch minutes.
+    public static final String COLUMN_TABLE_NUMBER = "table_number";
+
+    // One row per word of each customer's name, so "smith" finds "Alice Smith" via an index.
+    public static final String TABLE_NAME_WORDS = "reservation_name_words";
+    public static final String COLUMN_WORD = "word";
+    public static final String COLUMN_RESERVATION_ID = "reservation_id";
+
+    public ReservationDbHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // WAL mode lets the list keep reading while a save is in progress.
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        createReservationsTable(db);
+        createNameWordsTable(db);
+
+        // Start off with the same sample bookings the screen used to hard-code, so a fresh
+        // install doesn't look empty.
+        insertSample(db, "Alice Smith", "2024-06-10", "18:00", 2);
+        insertSample(db, "Bob Johnson", "2024-06-10", "19:30", 4);
+        insertSample(db, "Charlie Brown", "2024-06-11", "20:00", 8);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            migrateToPackedSlots(db);
+        }
+        if (oldVersion < 3) {
+            createNameWordsTable(db);
+            try (Cursor cursor = db.rawQuery("SELECT " + COLUMN_ID + ", " + COLUMN_CUSTOMER_NAME + ", "
+                    + COLUMN_SLOT + " FROM " + TABLE_RESERVATIONS, null)) {
+                while (cursor.moveToNext()) {
+                    insertNameWords(db, cursor.getLong(0), cursor.getString(1), cursor.getInt(2));
+                }
+            }
+        }
+    }
+
+    private void createReservationsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_RESERVATIONS + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COLUMN_CUSTOMER_NAME + " TEXT NOT NULL, "
+                + COLUMN_SLOT + " INTEGER NOT NULL, "
+                + COLUMN_TABLE_NUMBER + " INTEGER NOT NULL)");
+
+        // The list is always shown in time order, so this index means paging is just an
+        // index walk instead of a full sort. It also answers "everything on this day" lookups.
+        db.execSQL("CREATE INDEX idx_reservations_slot ON " + TABLE_RESERVATIONS
+                + " (" + COLUMN_SLOT + ", " + COLUMN_ID + ")");
+        // And this one is for "what's booked on table N that evening?" style questions.
+        db.execSQL("CREATE INDEX idx_reservations_table ON " + TABLE_RESERVATIONS
+                + " (" + COLUMN_TABLE_NUMBER + ", " + COLUMN_SLOT + ")");
+    }
+
+    private void createNameWordsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_NAME_WORDS + " ("
+                + COLUMN_WORD + " TEXT NOT NULL, "
+                + COLUMN_RESERVATION_ID + " INTEGER NOT NULL, "
+                + COLUMN_SLOT + " INTEGER NOT NULL)");
+        // Word first for prefix lookups, then slot so "smith, tonight" stays inside the index.
+        db.execSQL("CREATE INDEX idx_name_words_word_slot ON " + TABLE_NAME_WORDS
+                + " (" + COLUMN_WORD + ", " + COLUMN_SLOT + ")");
+        // So we can quickly clear out a reservation's words when it changes or is cancelled.
+        db.execSQL("CREATE INDEX idx_name_words_reservation ON " + TABLE_NAME_WORDS
+                + " (" + COLUMN_RESERVATION_ID + ")");
+    }
+
+    /**
+     * Indexes each word of a customer's name. The caller should have removed any old words
+     * for this reservation first.
+     */
+    static void insertNameWords(SQLiteDatabase db, long reservationId, String customerName, int slot) {
+        for (String word : SearchText.tokenize(customerName)) {
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_WORD, word);
+            values.put(COLUMN_RESERVATION_ID, reservationId);
+            values.put(COLUMN_SLOT, slot);
+            db.insert(TABLE_NAME_WORDS, null, values);
+        }
+    }
+
+    /**
+     * Moves version 1 databases (separate "date" and "time" text columns) over to packed slots.
+     * SQLite can't parse our dates for us, so we copy the rows across by hand.
+     */
+    private void migrateToPackedSlots(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_RESERVATIONS + " RENAME TO reservations_v1");
+        db.execSQL("DROP INDEX IF EXISTS idx_reservations_date_time");
+        db.execSQL("DROP INDEX IF EXISTS idx_reservations_table");
+        createReservationsTable(db);
+
+        try (Cursor cursor = db.rawQuery("SELECT _id, customer_name, date, time, table_number"
+                + " FROM reservations_v1", null)) {
+            while (cursor.moveToNext()) {
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_ID, cursor.getLong(0));
+                values.put(COLUMN_CUSTOMER_NAME, cursor.getString(1));
+                values.put(COLUMN_SLOT, ReservationTime.toEpochMinute(cursor.getString(2), cursor.getString(3)));
+                values.put(COLUMN_TABLE_NUMBER, cursor.getInt(4));
+                db.insert(TABLE_RESERVATIONS, null, values);
+            }
+        }
+        db.execSQL("DROP TABLE reservations_v1");
+    }
+
+    private void insertSample(SQLiteDatabase db, String name, String date, String time, int table) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_CUSTOMER_NAME, name);
+        values.put(COLUMN_SLOT, ReservationTime.toEpochMinute(date, time));
+        values.put(COLUMN_TABLE_NUMBER, table);
+        long id = db.insert(TABLE_RESERVATIONS, null, values);
+        insertNameWords(db, id, name, values.getAsInteger(COLUMN_SLOT));
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.aaa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes reservations out as a CSV spreadsheet or an iCalendar (.ics) file, one at a time,
+ * straight into a channel.
+ *
+ * Nothing is built up in memory: each reservation becomes one line (or one calendar event) in a
+ * reused StringBuilder, gets encoded to UTF-8 into a fixed 64 KB buffer, and the buffer goes to
+ * the channel whenever it fills up. So exporting a week or ten years uses the same memory.
+ *
+ * Call {@link #writeReservation} for each booking in order, then {@link #finish()}.
+ */
+public class ReservationExportWriter {
+
+    /**
+     * The file types we can export.
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        ICS("text/calendar", "ics");
+
+        public final String mimeType;
+        public final String extension;
+
+        Format(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+    }
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // Calendar lines longer than this many bytes have to be folded onto the next line.
+    private static final int ICS_MAX_LINE_BYTES = 75;
+    private static final DateTimeFormatter ICS_UTC_STAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final String exportedAt; // The DTSTAMP every calendar event gets.
+    private final StringBuilder line = new StringBuilder(256);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private boolean started;
+
+    /**
+     * @param channel        Where the file goes. We don't close it; that's up to the caller.
+     * @param exportedAtMillis When the export happened, stamped on each calendar event.
+     */
+    public ReservationExportWriter(WritableByteChannel channel, Format format, long exportedAtMillis) {
+        this.channel = channel;
+        this.format = format;
+        this.exportedAt = ICS_UTC_STAMP.format(Instant.ofEpochMilli(exportedAtMillis));
+    }
+
+    /**
+     * Writes one reservation. These should come in the order they ought to appear in the file.
+     */
+    public void writeReservation(long id, String customerName, int slot, int tableNumber) throws IOException {
+        if (!started) {
+            writeHeader();
+            started = true;
+        }
+        if (format == Format.CSV) {
+            line.append(id).append(',');
+            appendCsvField(customerName);
+            line.append(',').append(ReservationTime.formatDate(slot))
+                    .append(',').append(ReservationTime.formatTime(slot))
+                    .append(',').append(tableNumber).append("\r\n");
+        } else {
+            line.append("BEGIN:VEVENT\r\n");
+            line.append("UID:reservation-").append(id).append("@com.example.aaa\r\n");
+            line.append("DTSTAMP:").append(exportedAt).append("\r\n");
+            line.append("DTSTART:");
+            appendIcsDateTime(slot);
+            line.append("\r\nDTEND:");
+            appendIcsDateTime(slot + TableConflictEngine.DEFAULT_SEATING_MINUTES);
+            line.append("\r\n");
+            appendIcsFolded("SUMMARY:", escapeIcsText(customerName) + " (Table " + tableNumber + ")");
+            line.append("END:VEVENT\r\n");
+        }
+        emit();
+    }
+
+    /**
+     * Writes whatever closes the file off and pushes the last bytes out to the channel.
+     */
+    public void finish() throws IOException {
+        if (!started) {
+            writeHeader(); // Still a valid (empty) file.
+            emit();
+        }
+        if (format == Format.ICS) {
+            line.append("END:VCALENDAR\r\n");
+            emit();
+        }
+        encoder.encode(CharBuffer.wrap(""), bytes, true);
+        encoder.flush(bytes);
+        drain();
+    }
+
+    private void writeHeader() {
+        if (format == Format.CSV) {
+            line.append("id,customer_name,date,time,table\r\n");
+        } else {
+            line.append("BEGIN:VCALENDAR\r\n")
+                    .append("VERSION:2.0\r\n")
+                    .append("PRODID:-//AAA Restaurant//Reservations//EN\r\n")
+                    .append("CALSCALE:GREGORIAN\r\n");
+        }
+    }
+
+    // --- Encoding and buffering ---
+
+    /**
+     * Encodes the current line into the byte buffer, sending the buffer off whenever it fills.
+     */
+    private void emit() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, false);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        line.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    // --- CSV ---
+
+    /**
+     * Quotes a field if it has to be, and stops spreadsheet apps from treating a name that
+     * starts with = + - or @ as a formula. A leading tab or carriage return counts too, since
+     * some spreadsheets skip past those and still read the formula behind them.
+     */
+    private void appendCsvField(String value) {
+        boolean formula = !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+        boolean needsQuotes = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!needsQuotes) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        if (formula) {
+            line.append('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    // --- iCalendar ---
+
+    /**
+     * A local ("floating") date-time like 20250314T193000, which calendar apps show at that
+     * time wherever the phone is, which is what a restaurant booking means.
+     */
+    private void appendIcsDateTime(int epochMinute) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMinute, ReservationTime.MINUTES_PER_DAY));
+        int minuteOfDay = Math.floorMod(epochMinute, ReservationTime.MINUTES_PER_DAY);
+        line.append(date.getYear());
+        appendTwoDigits(date.getMonthValue());
+        appendTwoDigits(date.getDayOfMonth());
+        line.append('T');
+        appendTwoDigits(minuteOfDay / 60);
+        appendTwoDigits(minuteOfDay % 60);
+        line.append("00");
+    }
+
+    private void appendTwoDigits(int value) {
+        line.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Backslash-escapes the characters that mean something in a calendar text value.
+     */
+    static String escapeIcsText(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == ';' || c == ',') {
+                escaped.append('\\').append(c);
+            } else if (c == '\n') {
+                escaped.append("\\n");
+            } else if (c != '\r') {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Adds a property line, folding it every 75 bytes (the calendar format's limit) by
+     * breaking the line and starting the next one with a space. We never split a character.
+     */
+    private void appendIcsFolded(String name, String value) {
+        line.append(name);
+        int lineBytes = name.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int size = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isSurrogate(c) ? 2 : 3;
+            boolean midPair = Character.isLowSurrogate(c);
+            if (!midPair && lineBytes + size + (Character.isHighSurrogate(c) ? 2 : 0) > ICS_MAX_LINE_BYTES) {
+                line.append("\r\n ");
+                lineBytes = 1;
+            }
+            line.append(c);
+            lineBytes += size;
+        }
+        line.append("\r\n");
+    }
+}
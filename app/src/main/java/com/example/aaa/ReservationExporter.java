@@ -0,0 +1,143 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.provider.DocumentsContract;
+import android.util.Log;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exports reservations to a file the user picked (CSV for accounting, .ics for the kitchen's
+ * calendar), on its own background thread so the reservations list keeps working meanwhile.
+ *
+ * Rows go straight from the database cursor through a ReservationExportWriter into the file's
+ * channel, so a year of bookings takes no more memory than a day.
+ */
+public class ReservationExporter {
+
+    private static final String TAG = "ReservationExporter";
+    // How often (in rows) we tell the screen how far we've got.
+    private static final int PROGRESS_EVERY_ROWS = 500;
+
+    /**
+     * Hears how an export is going. Both methods are called on the main thread.
+     */
+    public interface Listener {
+        void onProgress(int written, int total);
+
+        /**
+         * @param written How many reservations went into the file.
+         * @param error   What went wrong, or null if it worked (or was cancelled).
+         */
+        void onFinished(int written, boolean cancelled, String error);
+    }
+
+    /**
+     * An export in progress. If it's cancelled, the half-written file is deleted.
+     */
+    public static class Request {
+        private volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private static ReservationExporter instance;
+
+    private final Context appContext;
+    private final ReservationRepository repository;
+    // Separate from the repository's worker, so a long export doesn't hold up the list.
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ReservationExporter(Context context) {
+        appContext = context.getApplicationContext();
+        repository = ReservationRepository.getInstance(appContext);
+    }
+
+    public static synchronized ReservationExporter getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReservationExporter(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Starts writing every reservation that matches the filter to a file.
+     *
+     * @param destination A document the user created (e.g. with ACTION_CREATE_DOCUMENT).
+     * @param range       Which reservations to include; usually a date range.
+     * @return A handle for cancelling the export.
+     */
+    public Request start(Uri destination, ReservationExportWriter.Format format, ReservationFilter range,
+                         Listener listener) {
+        Request request = new Request();
+        executor.execute(() -> {
+            int[] written = {0};
+            String error = null;
+            int total = repository.countBlocking(range);
+            // "wt" empties the file first, in case we're writing over an older export.
+            try (ParcelFileDescriptor pfd = appContext.getContentResolver().openFileDescriptor(destination, "wt")) {
+                if (pfd == null) {
+                    throw new FileNotFoundException(destination.toString());
+                }
+                try (FileOutputStream out = new FileOutputStream(pfd.getFileDescriptor());
+                     FileChannel channel = out.getChannel()) {
+                    ReservationExportWriter writer = new ReservationExportWriter(channel, format, System.currentTimeMillis());
+                    repository.forEachBlocking(range, (id, customerName, slot, tableNumber) -> {
+                        if (request.isCancelled()) {
+                            return false;
+                        }
+                        writer.writeReservation(id, customerName, slot, tableNumber);
+                        if (++written[0] % PROGRESS_EVERY_ROWS == 0) {
+                            int soFar = written[0];
+                            mainHandler.post(() -> listener.onProgress(soFar, total));
+                        }
+                        return true;
+                    });
+                    writer.finish();
+                    // Some document providers hand us a pipe rather than a file, and a pipe
+                    // can't be synced (it fails with EINVAL). Every byte has been written by
+                    // then anyway, so we only sync real files.
+                    if (pfd.getStatSize() >= 0) {
+                        channel.force(false);
+                    }
+                }
+            } catch (IOException | SecurityException | IllegalArgumentException e) {
+                Log.w(TAG, "Export failed", e);
+                error = "Couldn't write the export file";
+            }
+
+            boolean cancelled = request.isCancelled();
+            if (cancelled || error != null) {
+                deleteQuietly(destination); // Don't leave half a file lying around.
+            }
+            int count = written[0];
+            String finalError = error;
+            mainHandler.post(() -> listener.onFinished(count, cancelled, finalError));
+        });
+        return request;
+    }
+
+    private void deleteQuietly(Uri document) {
+        try {
+            DocumentsContract.deleteDocument(appContext.getContentResolver(), document);
+        } catch (FileNotFoundException | SecurityException | IllegalArgumentException e) {
+            Log.w(TAG, "Couldn't delete unfinished export " + document, e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.aaa;
+
+import java.util.List;
+
+/**
+ * Describes which reservations the list should show: an optional customer-name search
+ * (matched word by word, by prefix, ignoring case) and an optional range of start times.
+ * It's immutable, so a new search just means making a new filter.
+ */
+public final class ReservationFilter {
+
+    // The "show everything" filter.
+    public static final ReservationFilter ALL = new ReservationFilter("", Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    private final List<String> nameWords; // Already split up and lower-cased.
+    private final int fromSlot;           // First epoch minute to include.
+    private final int toSlot;             // Epoch minute to stop at (not included).
+
+    private ReservationFilter(String nameQuery, int fromSlot, int toSlot) {
+        this.nameWords = SearchText.tokenize(nameQuery);
+        this.fromSlot = fromSlot;
+        this.toSlot = toSlot;
+    }
+
+    /**
+     * A filter with a different name search, keeping the same time range.
+     */
+    public ReservationFilter withName(String nameQuery) {
+        return new ReservationFilter(nameQuery, fromSlot, toSlot);
+    }
+
+    /**
+     * A filter limited to a single day, keeping the same name search.
+     *
+     * @param date The day, as "YYYY-MM-DD".
+     */
+    public ReservationFilter onDay(String date) {
+        int dayStart = ReservationTime.startOfDay(date);
+        return new ReservationFilter(String.join(" ", nameWords), dayStart, dayStart + ReservationTime.MINUTES_PER_DAY);
+    }
+
+    /**
+     * A filter limited to a range of start times, keeping the same name search.
+     *
+     * @param fromSlot The first epoch minute to include.
+     * @param toSlot   The epoch minute to stop at (not included).
+     */
+    public ReservationFilter between(int fromSlot, int toSlot) {
+        return new ReservationFilter(String.join(" ", nameWords), fromSlot, toSlot);
+    }
+
+    /**
+     * A filter covering every date, keeping the same name search.
+     */
+    public ReservationFilter anyDay() {
+        return new ReservationFilter(String.join(" ", nameWords), Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public List<String> getNameWords() {
+        return nameWords;
+    }
+
+    public int getFromSlot() {
+        return fromSlot;
+    }
+
+    public int getToSlot() {
+        return toSlot;
+    }
+
+    public boolean hasTimeRange() {
+        return fromSlot != Integer.MIN_VALUE || toSlot != Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.aaa;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * A windowed view over every reservation in the database. Instead of holding the whole list,
+ * it only keeps a few pages around the spot the user is looking at, loads neighbouring pages
+ * just before they're needed, and forgets pages once they're far enough away.
+ * That way memory stays flat whether we have a hundred bookings or a hundred thousand.
+ */
+public class ReservationPager {
+
+    // How many rows we fetch in one go.
+    public static final int PAGE_SIZE = 50;
+    // Pages further than this from the one being shown get thrown away.
+    private static final int MAX_PAGE_DISTANCE = 2;
+    // Working out what changed after a refresh happens on here, never on the UI thread.
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final ReservationRepository repository;
+    private final RecyclerView.Adapter<?> adapter; // So we can tell the list which rows to redraw.
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final SparseArray<List<Reservation>> pages = new SparseArray<>();
+    private final SparseArray<Boolean> pagesLoading = new SparseArray<>();
+    private ReservationFilter filter = ReservationFilter.ALL;
+    private int totalCount = 0;
+    // Bumped every time we refresh, so results from an older request get ignored.
+    private int generation = 0;
+
+    public ReservationPager(ReservationRepository repository, RecyclerView.Adapter<?> adapter) {
+        this.repository = repository;
+        this.adapter = adapter;
+    }
+
+    /**
+     * Switches to a different filter, e.g. when the user types in the search box. The rows
+     * we had belong to the old filter, so we drop them and start again from the top.
+     */
+    public void setFilter(ReservationFilter newFilter) {
+        final int requestGeneration = ++generation;
+        filter = newFilter;
+        pages.clear();
+        pagesLoading.clear();
+
+        repository.loadWindow(filter, 0, PAGE_SIZE, window -> {
+            if (requestGeneration != generation) {
+                return; // The user has typed something else since.
+            }
+            replacePages(0, window.items);
+            totalCount = window.totalCount;
+            adapter.notifyDataSetChanged();
+        });
+    }
+
+    public ReservationFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * The total number of matching reservations, including the ones we haven't loaded yet.
+     */
+    public int size() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the reservation at a position, or null if its page isn't loaded yet. Either way,
+     * this makes sure the page and its neighbours are on their way in.
+     */
+    @Nullable
+    public Reservation get(int position) {
+        int pageIndex = position / PAGE_SIZE;
+        ensureLoaded(pageIndex);
+        ensureLoaded(pageIndex - 1);
+        ensureLoaded(pageIndex + 1);
+        evictDistantPages(pageIndex);
+
+        List<Reservation> page = pages.get(pageIndex);
+        int indexInPage = position % PAGE_SIZE;
+        if (page == null || indexInPage >= page.size()) {
+            return null;
+        }
+        return page.get(indexInPage);
+    }
+
+    /**
+     * Reloads the rows we're currently holding and works out what changed. We call this when
+     * the data underneath us has changed, e.g. after a save or a cancellation. The comparison
+     * runs on a background thread, and only the rows that actually changed get redrawn.
+     */
+    public void refresh() {
+        final int requestGeneration = ++generation;
+        pagesLoading.clear();
+
+        // Reload the same stretch of rows we have now, so we can compare old against new.
+        final int firstPage = pages.size() > 0 ? pages.keyAt(0) : 0;
+        final int lastPage = pages.size() > 0 ? pages.keyAt(pages.size() - 1) : 0;
+        final int windowStart = firstPage * PAGE_SIZE;
+        final List<Reservation> oldWindow = flattenPages(firstPage, lastPage);
+        final int oldTotal = totalCount;
+
+        repository.loadWindow(filter, windowStart, (lastPage - firstPage + 1) * PAGE_SIZE, window -> {
+            if (requestGeneration != generation) {
+                return; // Someone refreshed again while we were waiting.
+            }
+            if (oldWindow == null || oldWindow.isEmpty()) {
+                // Nothing useful to compare against (first load, or a gap in our pages),
+                // so just redraw whatever is on screen.
+                replacePages(firstPage, window.items);
+                totalCount = window.totalCount;
+                adapter.notifyDataSetChanged();
+                return;
+            }
+
+            DIFF_EXECUTOR.execute(() -> {
+                DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new WindowDiff(oldWindow, window.items));
+                mainHandler.post(() -> {
+                    if (requestGeneration != generation) {
+                        return;
+                    }
+                    replacePages(firstPage, window.items);
+                    totalCount = window.totalCount;
+                    diff.dispatchUpdatesTo(new OffsetUpdateCallback(windowStart));
+
+                    // Rows past the end of our window weren't diffed, so just fix up the count.
+                    int oldAfter = oldTotal - windowStart - oldWindow.size();
+                    int newAfter = window.totalCount - windowStart - window.items.size();
+                    int afterStart = windowStart + window.items.size();
+                    if (newAfter > oldAfter) {
+                        adapter.notifyItemRangeInserted(afterStart + oldAfter, newAfter - oldAfter);
+                    } else if (newAfter < oldAfter) {
+                        adapter.notifyItemRangeRemoved(afterStart + newAfter, oldAfter - newAfter);
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Glues pages first..last together into one list, or returns null if any are missing.
+     */
+    @Nullable
+    private List<Reservation> flattenPages(int firstPage, int lastPage) {
+        List<Reservation> rows = new ArrayList<>((lastPage - firstPage + 1) * PAGE_SIZE);
+        for (int pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+            List<Reservation> page = pages.get(pageIndex);
+            if (page == null) {
+                return null;
+            }
+            rows.addAll(page);
+        }
+        return rows;
+    }
+
+    /**
+     * Swaps our pages for a freshly loaded window of rows starting at firstPage.
+     */
+    private void replacePages(int firstPage, List<Reservation> rows) {
+        pages.clear();
+        for (int start = 0; start < rows.size(); start += PAGE_SIZE) {
+            pages.put(firstPage + start / PAGE_SIZE,
+                    rows.subList(start, Math.min(start + PAGE_SIZE, rows.size())));
+        }
+    }
+
+    private void ensureLoaded(int pageIndex) {
+        if (pageIndex < 0 || pageIndex * PAGE_SIZE >= totalCount) {
+            return; // There's no such page.
+        }
+        if (pages.get(pageIndex) != null || pagesLoading.get(pageIndex) != null) {
+            return; // Already have it, or it's on its way.
+        }
+
+        pagesLoading.put(pageIndex, Boolean.TRUE);
+        final int requestGeneration = generation;
+        repository.loadPage(filter, pageIndex * PAGE_SIZE, PAGE_SIZE, page -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            pagesLoading.remove(pageIndex);
+            pages.put(pageIndex, page);
+            // Only the rows in this page need redrawing (they were showing placeholders).
+            adapter.notifyItemRangeChanged(pageIndex * PAGE_SIZE, page.size());
+        });
+    }
+
+    /**
+     * Compares the old and new windows row by row, using the adapter's idea of "same item".
+     */
+    private static class WindowDiff extends DiffUtil.Callback {
+        private final List<Reservation> oldRows;
+        private final List<Reservation> newRows;
+
+        WindowDiff(List<Reservation> oldRows, List<Reservation> newRows) {
+            this.oldRows = oldRows;
+            this.newRows = newRows;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldRows.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newRows.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return ReservationAdapter.DIFF_CALLBACK.areItemsTheSame(oldRows.get(oldPosition), newRows.get(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return ReservationAdapter.DIFF_CALLBACK.areContentsTheSame(oldRows.get(oldPosition), newRows.get(newPosition));
+        }
+    }
+
+    /**
+     * Passes diff results on to the adapter, shifted by where our window starts in the list.
+     */
+    private class OffsetUpdateCallback implements ListUpdateCallback {
+        private final int offset;
+
+        OffsetUpdateCallback(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            adapter.notifyItemRangeInserted(offset + position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            adapter.notifyItemRangeRemoved(offset + position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            adapter.notifyItemMoved(offset + fromPosition, offset + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            adapter.notifyItemRangeChanged(offset + position, count, payload);
+        }
+    }
+
+    private void evictDistantPages(int currentPage) {
+        for (int i = pages.size() - 1; i >= 0; i--) {
+            if (Math.abs(pages.keyAt(i) - currentPage) > MAX_PAGE_DISTANCE) {
+                pages.removeAt(i);
+            }
+        }
+    }
+}
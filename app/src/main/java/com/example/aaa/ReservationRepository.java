@@ -0,0 +1,323 @@
+package com.example.aaa;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The one place that knows how reservations are stored. Screens ask this class for data and
+ * get it back through a callback, so all the actual disk work happens on a background thread
+ * and the UI never has to wait on it.
+ */
+public class ReservationRepository {
+
+    /**
+     * A tiny callback for handing results back. It's always called on the main thread,
+     * so it's safe to touch views from inside it.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private static ReservationRepository instance;
+
+    private final ReservationDbHelper dbHelper;
+    // A single worker thread means writes and reads happen in the order they were asked for,
+    // so a reload right after a save will always see the new row.
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // The order every screen shows reservations in. It matches idx_reservations_slot.
+    private static final String ORDER_BY = ReservationDbHelper.COLUMN_SLOT + ", "
+            + ReservationDbHelper.COLUMN_ID;
+
+    private ReservationRepository(Context context) {
+        dbHelper = new ReservationDbHelper(context);
+    }
+
+    /**
+     * There's only ever one repository for the whole app, so everyone shares the same
+     * database connection and worker thread.
+     */
+    public static synchronized ReservationRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReservationRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * A page of reservations along with how many there are in total. Both are read together,
+     * so they always agree with each other.
+     */
+    public static class Window {
+        public final int totalCount;
+        public final List<Reservation> items;
+
+        Window(int totalCount, List<Reservation> items) {
+            this.totalCount = totalCount;
+            this.items = items;
+        }
+    }
+
+    /**
+     * Opens the database (running any upgrade) and reads the first page of the list, so it's
+     * already in SQLite's cache when the reservations screen asks for it.
+     * This blocks, so only call it from a background thread, e.g. during startup.
+     */
+    public void warmUp() {
+        queryPage(ReservationFilter.ALL, 0, ReservationPager.PAGE_SIZE);
+    }
+
+    /**
+     * Loads one page of the reservations that match a filter, in time order.
+     *
+     * @param offset How many matching rows to skip.
+     * @param limit  The maximum number of rows to return.
+     */
+    public void loadPage(ReservationFilter filter, int offset, int limit, Callback<List<Reservation>> callback) {
+        executor.execute(() -> deliver(callback, queryPage(filter, offset, limit)));
+    }
+
+    /**
+     * Loads one page of matching reservations plus how many match in total, as a single
+     * consistent snapshot. This is what a list uses when it's (re)starting from scratch.
+     */
+    public void loadWindow(ReservationFilter filter, int offset, int limit, Callback<Window> callback) {
+        executor.execute(() -> deliver(callback, new Window(countBlocking(filter), queryPage(filter, offset, limit))));
+    }
+
+    /**
+     * Loads every reservation starting in a time range, in time order. The slot index means
+     * this only ever touches the rows inside the range, never the whole history.
+     *
+     * @param fromSlot The first epoch minute to include.
+     * @param toSlot   The epoch minute to stop at (not included).
+     */
+    public void loadRange(int fromSlot, int toSlot, Callback<List<Reservation>> callback) {
+        executor.execute(() -> deliver(callback, queryRange(fromSlot, toSlot)));
+    }
+
+    /**
+     * Builds a conflict engine holding every booking that could overlap the given day (the day
+     * itself plus its neighbours, for late sittings that run past midnight).
+     *
+     * @param date The day in question, as "YYYY-MM-DD".
+     */
+    public void loadConflictEngine(String date, Callback<TableConflictEngine> callback) {
+        executor.execute(() -> {
+            int dayStart = ReservationTime.startOfDay(date);
+            List<Reservation> nearby = queryRange(dayStart - ReservationTime.MINUTES_PER_DAY,
+                    dayStart + 2 * ReservationTime.MINUTES_PER_DAY);
+            deliver(callback, TableConflictEngine.fromReservations(nearby));
+        });
+    }
+
+    /**
+     * Saves a brand new reservation. Once it's stored, the reservation's ID is filled in.
+     */
+    public void insert(Reservation reservation, Callback<Reservation> callback) {
+        executor.execute(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                long id = db.insert(ReservationDbHelper.TABLE_RESERVATIONS, null, toValues(reservation));
+                reservation.setId(id);
+                ReservationDbHelper.insertNameWords(db, id, reservation.getCustomerName(), reservation.getSlot());
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            deliver(callback, reservation);
+        });
+    }
+
+    /**
+     * Writes the current details of an existing reservation back to disk.
+     */
+    public void update(Reservation reservation) {
+        executor.execute(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            String[] idArg = {String.valueOf(reservation.getId())};
+            db.beginTransaction();
+            try {
+                db.update(ReservationDbHelper.TABLE_RESERVATIONS, toValues(reservation),
+                        ReservationDbHelper.COLUMN_ID + " = ?", idArg);
+                // The name or time may have changed, so re-index it from scratch.
+                db.delete(ReservationDbHelper.TABLE_NAME_WORDS,
+                        ReservationDbHelper.COLUMN_RESERVATION_ID + " = ?", idArg);
+                ReservationDbHelper.insertNameWords(db, reservation.getId(),
+                        reservation.getCustomerName(), reservation.getSlot());
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /**
+     * Removes a reservation for good.
+     */
+    public void delete(long id) {
+        executor.execute(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            String[] idArg = {String.valueOf(id)};
+            db.beginTransaction();
+            try {
+                db.delete(ReservationDbHelper.TABLE_RESERVATIONS, ReservationDbHelper.COLUMN_ID + " = ?", idArg);
+                db.delete(ReservationDbHelper.TABLE_NAME_WORDS,
+                        ReservationDbHelper.COLUMN_RESERVATION_ID + " = ?", idArg);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    /**
+     * Gets each row of a long read (like an export) as it comes off the cursor.
+     */
+    interface RowVisitor {
+        /**
+         * @return false to stop early.
+         */
+        boolean visit(long id, String customerName, int slot, int tableNumber) throws IOException;
+    }
+
+    /**
+     * How many reservations match a filter. This blocks, so only call it from a background thread.
+     */
+    int countBlocking(ReservationFilter filter) {
+        Selection selection = new Selection(filter);
+        return (int) DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                ReservationDbHelper.TABLE_RESERVATIONS, selection.where, selection.args);
+    }
+
+    /**
+     * Walks every matching reservation in time order without loading them all into a list,
+     * so it takes the same memory however many there are. This blocks, so only call it from a
+     * background thread (not our worker, or everything else would wait behind it).
+     */
+    void forEachBlocking(ReservationFilter filter, RowVisitor visitor) throws IOException {
+        Selection selection = new Selection(filter);
+        try (Cursor cursor = dbHelper.getReadableDatabase().query(ReservationDbHelper.TABLE_RESERVATIONS,
+                new String[]{ReservationDbHelper.COLUMN_ID, ReservationDbHelper.COLUMN_CUSTOMER_NAME,
+                        ReservationDbHelper.COLUMN_SLOT, ReservationDbHelper.COLUMN_TABLE_NUMBER},
+                selection.where, selection.args, null, null, ORDER_BY)) {
+            while (cursor.moveToNext()) {
+                if (!visitor.visit(cursor.getLong(0), cursor.getString(1), cursor.getInt(2), cursor.getInt(3))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // --- Everything below runs on the worker thread ---
+
+    /**
+     * Turns a filter into a WHERE clause. The time range goes straight onto the slot index.
+     * Each name word becomes a lookup in the word table: a prefix is just a range of words
+     * ("smi" up to "smi\uFFFF"), and the word table also stores the slot, so both conditions
+     * are answered from idx_name_words_word_slot without touching the other rows at all.
+     */
+    private static class Selection {
+        final String where;
+        final String[] args;
+
+        Selection(ReservationFilter filter) {
+            StringBuilder clause = new StringBuilder();
+            List<String> values = new ArrayList<>();
+            String fromSlot = String.valueOf(filter.getFromSlot());
+            String toSlot = String.valueOf(filter.getToSlot());
+
+            if (filter.hasTimeRange()) {
+                clause.append(ReservationDbHelper.COLUMN_SLOT).append(" >= ? AND ")
+                        .append(ReservationDbHelper.COLUMN_SLOT).append(" < ?");
+                values.add(fromSlot);
+                values.add(toSlot);
+            }
+            for (String word : filter.getNameWords()) {
+                if (clause.length() > 0) {
+                    clause.append(" AND ");
+                }
+                clause.append(ReservationDbHelper.COLUMN_ID).append(" IN (SELECT ")
+                        .append(ReservationDbHelper.COLUMN_RESERVATION_ID).append(" FROM ")
+                        .append(ReservationDbHelper.TABLE_NAME_WORDS).append(" WHERE ")
+                        .append(ReservationDbHelper.COLUMN_WORD).append(" >= ? AND ")
+                        .append(ReservationDbHelper.COLUMN_WORD).append(" < ?");
+                values.add(word);
+                values.add(SearchText.prefixUpperBound(word));
+                if (filter.hasTimeRange()) {
+                    clause.append(" AND ").append(ReservationDbHelper.COLUMN_SLOT).append(" >= ? AND ")
+                            .append(ReservationDbHelper.COLUMN_SLOT).append(" < ?");
+                    values.add(fromSlot);
+                    values.add(toSlot);
+                }
+                clause.append(")");
+            }
+
+            where = clause.length() > 0 ? clause.toString() : null;
+            args = values.isEmpty() ? null : values.toArray(new String[0]);
+        }
+    }
+
+    private List<Reservation> queryPage(ReservationFilter filter, int offset, int limit) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Selection selection = new Selection(filter);
+        List<Reservation> page = new ArrayList<>(limit);
+        try (Cursor cursor = db.query(ReservationDbHelper.TABLE_RESERVATIONS, null, selection.where,
+                selection.args, null, null, ORDER_BY, offset + "," + limit)) {
+            while (cursor.moveToNext()) {
+                page.add(fromCursor(cursor));
+            }
+        }
+        return page;
+    }
+
+    private List<Reservation> queryRange(int fromSlot, int toSlot) {
+        List<Reservation> rows = new ArrayList<>();
+        try (Cursor cursor = dbHelper.getReadableDatabase().query(
+                ReservationDbHelper.TABLE_RESERVATIONS, null,
+                ReservationDbHelper.COLUMN_SLOT + " >= ? AND " + ReservationDbHelper.COLUMN_SLOT + " < ?",
+                new String[]{String.valueOf(fromSlot), String.valueOf(toSlot)},
+                null, null, ORDER_BY)) {
+            while (cursor.moveToNext()) {
+                rows.add(fromCursor(cursor));
+            }
+        }
+        return rows;
+    }
+
+    private static Reservation fromCursor(Cursor cursor) {
+        Reservation reservation = new Reservation(
+                cursor.getString(cursor.getColumnIndexOrThrow(ReservationDbHelper.COLUMN_CUSTOMER_NAME)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(ReservationDbHelper.COLUMN_SLOT)),
+                cursor.getInt(cursor.getColumnIndexOrThrow(ReservationDbHelper.COLUMN_TABLE_NUMBER)));
+        reservation.setId(cursor.getLong(cursor.getColumnIndexOrThrow(ReservationDbHelper.COLUMN_ID)));
+        return reservation;
+    }
+
+    private static ContentValues toValues(Reservation reservation) {
+        ContentValues values = new ContentValues();
+        values.put(ReservationDbHelper.COLUMN_CUSTOMER_NAME, reservation.getCustomerName());
+        values.put(ReservationDbHelper.COLUMN_SLOT, reservation.getSlot());
+        values.put(ReservationDbHelper.COLUMN_TABLE_NUMBER, reservation.getTableNumber());
+        return values;
+    }
+
+    private <T> void deliver(Callback<T> callback, T result) {
+        if (callback != null) {
+            mainHandler.post(() -> callback.onResult(result));
+        }
+    }
+}
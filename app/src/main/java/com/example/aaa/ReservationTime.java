@@ -0,0 +1,68 @@
+package com.example.aaa;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Helpers for our packed reservation time: a single int holding the number of minutes since
+ * 1970-01-01 00:00 (wall-clock time, no time zones involved). Sorting, range checks and
+ * conflict checks all become plain integer comparisons, and we only deal with the
+ * "YYYY-MM-DD" / "HH:MM" strings when something actually needs to be shown or typed in.
+ */
+public final class ReservationTime {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private ReservationTime() {
+        // Just static helpers in here.
+    }
+
+    /**
+     * Packs a "YYYY-MM-DD" date and an "HH:MM" time into epoch minutes.
+     */
+    public static int toEpochMinute(String date, String time) {
+        return toEpochMinute(LocalDate.parse(date)) + LocalTime.parse(time).toSecondOfDay() / 60;
+    }
+
+    /**
+     * The epoch minute of midnight at the start of the given day.
+     */
+    public static int toEpochMinute(LocalDate date) {
+        return (int) (date.toEpochDay() * MINUTES_PER_DAY);
+    }
+
+    /**
+     * The epoch minute of midnight at the start of the given "YYYY-MM-DD" day.
+     */
+    public static int startOfDay(String date) {
+        return toEpochMinute(LocalDate.parse(date));
+    }
+
+    /**
+     * Rounds an epoch minute down to midnight of the same day.
+     */
+    public static int startOfDay(int epochMinute) {
+        return epochMinute - Math.floorMod(epochMinute, MINUTES_PER_DAY);
+    }
+
+    /**
+     * Unpacks the date part, as "YYYY-MM-DD".
+     */
+    public static String formatDate(int epochMinute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY)).toString();
+    }
+
+    /**
+     * Unpacks the time part, as "HH:MM".
+     */
+    public static String formatTime(int epochMinute) {
+        int minuteOfDay = Math.floorMod(epochMinute, MINUTES_PER_DAY);
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        char[] chars = {
+                (char) ('0' + hour / 10), (char) ('0' + hour % 10), ':',
+                (char) ('0' + minute / 10), (char) ('0' + minute % 10)
+        };
+        return new String(chars);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.aaa;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Shared rules for turning names into searchable words, so the menu search and the
+ * reservation search treat text exactly the same way.
+ */
+public final class SearchText {
+
+    // Matches the accent marks left over after splitting "è" into "e" + "`". Compiled once.
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private SearchText() {
+        // Just a static helper.
+    }
+
+    /**
+     * Lower-cases the text, strips accents and splits it into distinct words.
+     * "Crème Brûlée" becomes ["creme", "brulee"].
+     */
+    public static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean isWordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                String word = normalized.substring(start, i);
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * The smallest string that sorts after every word starting with the given prefix.
+     * Together with the prefix itself, it gives a range that matches "starts with".
+     */
+    public static String prefixUpperBound(String prefix) {
+        return prefix + Character.MAX_VALUE;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.aaa;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Picks a table for a new booking, so staff don't have to work it out by hand.
+ *
+ * It's a best-fit heuristic, the same idea as packing boxes. First the party gets the smallest
+ * table they fit at, so a couple doesn't take the eight-seater. Among free tables of that size,
+ * the one whose day it fits into most snugly wins (the least idle time left before and after),
+ * which keeps long free stretches open on the other tables for later bookings.
+ *
+ * The tables are sorted by size once, up front, and each check is a lookup in the conflict
+ * engine, so a suggestion is O(tables x log bookings): well under a millisecond even for
+ * hundreds of tables and thousands of bookings.
+ */
+public class SeatingOptimizer {
+
+    private final int[] capacities;   // capacities[i] is how many table i + 1 seats.
+    private final int[] tablesBySize; // Table numbers, smallest first (then by number).
+    private final TableConflictEngine engine;
+
+    /**
+     * @param capacities How many each table seats, in table order: the first entry is table 1.
+     * @param engine     The day's existing bookings.
+     */
+    public SeatingOptimizer(int[] capacities, TableConflictEngine engine) {
+        this.capacities = capacities.clone();
+        this.engine = engine;
+        Integer[] tables = new Integer[capacities.length];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = i + 1;
+        }
+        Arrays.sort(tables, Comparator.<Integer>comparingInt(this::capacityOf).thenComparingInt(t -> t));
+        tablesBySize = new int[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            tablesBySize[i] = tables[i];
+        }
+    }
+
+    /**
+     * How many people a table seats, or 0 if we don't know that table.
+     */
+    public int capacityOf(int tableNumber) {
+        return tableNumber >= 1 && tableNumber <= capacities.length ? capacities[tableNumber - 1] : 0;
+    }
+
+    /**
+     * The best table for a party at a given time.
+     *
+     * @param ignoreId A reservation to leave out (the one being moved), or 0.
+     * @return The table number, or 0 if every table big enough is already taken.
+     */
+    public int suggestTable(int partySize, int startMinute, long ignoreId) {
+        int best = 0;
+        int bestIdle = Integer.MAX_VALUE;
+        for (int table : tablesBySize) {
+            int capacity = capacityOf(table);
+            if (capacity < partySize) {
+                continue;
+            }
+            if (best != 0 && capacity > capacityOf(best)) {
+                break; // Anything from here on is a bigger table than we need.
+            }
+            if (!engine.isFree(table, startMinute, ignoreId)) {
+                continue;
+            }
+            int idle = engine.idleMinutesAround(table, startMinute, ignoreId);
+            if (idle < bestIdle) {
+                best = table;
+                bestIdle = idle;
+            }
+        }
+        return best;
+    }
+}
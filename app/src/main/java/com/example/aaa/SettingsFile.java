@@ -0,0 +1,100 @@
+package com.example.aaa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes the little binary file the SettingsStore keeps its values in.
+ *
+ * File layout, all big-endian:
+ * <pre>
+ *   4 bytes  magic "SETS"
+ *   4 bytes  format version (1)
+ *   4 bytes  number of settings
+ *   then for each one: its name (modified UTF-8), a type tag (see SettingsKey), and the value
+ * </pre>
+ *
+ * Writes go to a temporary file that's synced and then renamed over the real one, so a crash
+ * halfway through leaves the old settings rather than a broken file.
+ */
+final class SettingsFile {
+
+    private static final int MAGIC = 0x53455453; // "SETS"
+    private static final int VERSION = 1;
+
+    private SettingsFile() {
+        // Just a holder for the static methods below.
+    }
+
+    /**
+     * @return Every stored setting by name, or null if there's no settings file yet.
+     * @throws IOException If the file exists but can't be read.
+     */
+    static Map<String, Object> read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a settings file");
+            }
+            int count = in.readInt();
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte type = in.readByte();
+                switch (type) {
+                    case SettingsKey.TYPE_BOOLEAN: values.put(name, in.readBoolean()); break;
+                    case SettingsKey.TYPE_INT: values.put(name, in.readInt()); break;
+                    case SettingsKey.TYPE_LONG: values.put(name, in.readLong()); break;
+                    case SettingsKey.TYPE_STRING: values.put(name, in.readUTF()); break;
+                    default: throw new IOException("Unknown setting type " + type + " for " + name);
+                }
+            }
+            return values;
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the file with these settings.
+     */
+    static void write(File file, Map<String, Object> values) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(values.size());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                out.writeUTF(entry.getKey());
+                Object value = entry.getValue();
+                if (value instanceof Boolean) {
+                    out.writeByte(SettingsKey.TYPE_BOOLEAN);
+                    out.writeBoolean((Boolean) value);
+                } else if (value instanceof Integer) {
+                    out.writeByte(SettingsKey.TYPE_INT);
+                    out.writeInt((Integer) value);
+                } else if (value instanceof Long) {
+                    out.writeByte(SettingsKey.TYPE_LONG);
+                    out.writeLong((Long) value);
+                } else {
+                    out.writeByte(SettingsKey.TYPE_STRING);
+                    out.writeUTF(String.valueOf(value));
+                }
+            }
+            out.flush();
+            fileOut.getFD().sync(); // Make sure it's really on disk before we swap it in.
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Couldn't replace " + file);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.aaa;
+
+/**
+ * One setting in the SettingsStore: its name on disk, what type it holds, and what you get
+ * back if it's never been set. Because the type is part of the key, reading a setting can't
+ * hand you the wrong kind of value.
+ *
+ * Adding a new setting is just one more constant, e.g. in SettingsStore:
+ * <pre>
+ *   public static final SettingsKey&lt;Integer&gt; STAFF_PAGE_SIZE = SettingsKey.intKey("staff_page_size", 50);
+ * </pre>
+ */
+public final class SettingsKey<T> {
+
+    // How each type is tagged in the settings file (SettingsFile picks the tag from the value).
+    // Never renumber these.
+    static final byte TYPE_BOOLEAN = 0;
+    static final byte TYPE_INT = 1;
+    static final byte TYPE_LONG = 2;
+    static final byte TYPE_STRING = 3;
+
+    final String name;
+    private final Class<T> valueClass;
+    private final T defaultValue;
+
+    private SettingsKey(String name, Class<T> valueClass, T defaultValue) {
+        this.name = name;
+        this.valueClass = valueClass;
+        this.defaultValue = defaultValue;
+    }
+
+    public static SettingsKey<Boolean> booleanKey(String name, boolean defaultValue) {
+        return new SettingsKey<>(name, Boolean.class, defaultValue);
+    }
+
+    public static SettingsKey<Integer> intKey(String name, int defaultValue) {
+        return new SettingsKey<>(name, Integer.class, defaultValue);
+    }
+
+    public static SettingsKey<Long> longKey(String name, long defaultValue) {
+        return new SettingsKey<>(name, Long.class, defaultValue);
+    }
+
+    public static SettingsKey<String> stringKey(String name, String defaultValue) {
+        return new SettingsKey<>(name, String.class, defaultValue);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Turns whatever's stored under this key into its value. Anything missing (or, after a
+     * key has changed type, the wrong kind of value) comes back as the default.
+     */
+    T valueOf(Object stored) {
+        return valueClass.isInstance(stored) ? valueClass.cast(stored) : defaultValue;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The app's settings, kept in memory and saved to a small file in the background.
+ *
+ * The file is read once, off the main thread, while the splash screen is up (see warmUp()).
+ * After that, get() is just a map lookup. set() changes the value straight away and asks for a
+ * save a moment later, so a burst of changes (like everything the login screen saves at once)
+ * turns into a single write on the worker thread.
+ *
+ * Every setting has a typed key (see SettingsKey), so a new one is just another constant here.
+ */
+public class SettingsStore {
+
+    private static final String TAG = "SettingsStore";
+    private static final String FILE_NAME = "settings.bin";
+    // How long we wait for more changes before saving.
+    private static final long WRITE_DELAY_MS = 300;
+
+    // --- The settings themselves ---
+
+    // Whether the login screen should fill in the last email next time.
+    public static final SettingsKey<Boolean> REMEMBER_ME = SettingsKey.booleanKey("remember_me", false);
+    // The email to fill in when REMEMBER_ME is on.
+    public static final SettingsKey<String> REMEMBERED_EMAIL = SettingsKey.stringKey("remembered_email", "");
+
+    // Where these used to live, so nobody loses their remembered email when they update.
+    private static final String OLD_PREFS_NAME = "MyPrefsFile";
+    private static final String OLD_PREF_EMAIL = "email";
+    private static final String OLD_PREF_REMEMBER = "remember";
+
+    private static SettingsStore instance;
+
+    private final Context appContext;
+    private final File file;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    // Everything below is guarded by "this".
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private boolean loaded;
+    private boolean writeScheduled;
+
+    private SettingsStore(Context context) {
+        appContext = context;
+        file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    public static synchronized SettingsStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new SettingsStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the settings file, so get() never has to. This blocks, so only call it from a
+     * background thread, e.g. during startup.
+     */
+    public void warmUp() {
+        ensureLoaded();
+    }
+
+    /**
+     * The current value of a setting, or its default if it's never been set.
+     * Call warmUp() first (startup does), otherwise this has to read the file itself.
+     */
+    public synchronized <T> T get(SettingsKey<T> key) {
+        ensureLoaded();
+        return key.valueOf(values.get(key.name));
+    }
+
+    /**
+     * Changes a setting (null puts it back to its default). Anyone who reads it afterwards sees the new value straight away;
+     * the file catches up shortly after.
+     */
+    public synchronized <T> void set(SettingsKey<T> key, T value) {
+        ensureLoaded();
+        if (value == null) {
+            values.remove(key.name);
+        } else {
+            values.put(key.name, value);
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * Puts a setting back to its default.
+     */
+    public synchronized void remove(SettingsKey<?> key) {
+        ensureLoaded();
+        if (values.remove(key.name) != null) {
+            scheduleWrite();
+        }
+    }
+
+    private synchronized void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        try {
+            Map<String, Object> stored = SettingsFile.read(file);
+            if (stored != null) {
+                values.putAll(stored);
+            } else {
+                migrateSharedPreferences();
+            }
+        } catch (IOException e) {
+            // A broken file shouldn't stop the app, so we just start from the defaults.
+            Log.w(TAG, "Couldn't read settings, using defaults", e);
+        }
+    }
+
+    /**
+     * The first time we run, copies across anything the old SharedPreferences file had, saves
+     * it, and then deletes the old file.
+     */
+    private void migrateSharedPreferences() throws IOException {
+        SharedPreferences old = appContext.getSharedPreferences(OLD_PREFS_NAME, Context.MODE_PRIVATE);
+        if (old.contains(OLD_PREF_REMEMBER)) {
+            values.put(REMEMBER_ME.name, old.getBoolean(OLD_PREF_REMEMBER, false));
+        }
+        if (old.contains(OLD_PREF_EMAIL)) {
+            values.put(REMEMBERED_EMAIL.name, old.getString(OLD_PREF_EMAIL, ""));
+        }
+        SettingsFile.write(file, values);
+        appContext.deleteSharedPreferences(OLD_PREFS_NAME);
+    }
+
+    private void scheduleWrite() {
+        if (!writeScheduled) {
+            writeScheduled = true;
+            executor.schedule(this::writeNow, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Runs on the worker thread.
+    private void writeNow() {
+        Map<String, Object> snapshot;
+        synchronized (this) {
+            writeScheduled = false;
+            snapshot = new LinkedHashMap<>(values);
+        }
+        try {
+            SettingsFile.write(file, snapshot);
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't save settings", e);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import android.os.Looper;
 import android.text.Editable;
 import android.text.SpannableString;
 import android.text.Spanned;
+import android.text.TextUtils;
 import android.text.TextWatcher;
 import android.text.method.LinkMovementMethod;
 import android.text.style.ClickableSpan;
@@ -26,6 +27,7 @@ import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 
 import java.util.Objects;
+import java.util.regex.Matcher;
 
 /**
  * The SignUpActivity is where new users can create an account.
@@ -43,6 +45,34 @@ public class SignUpActivity extends AppCompatActivity {
     private LinearLayout passwordStrengthIndicator;
     // endregion
 
+    // region Validation State
+    private static final int MIN_PASSWORD_LENGTH = 6;
+    private static final int STRENGTH_WEAK = 0, STRENGTH_MEDIUM = 1, STRENGTH_STRONG = 2;
+    private static final ColorStateList WEAK_TINT = ColorStateList.valueOf(Color.RED);
+    private static final ColorStateList MEDIUM_TINT = ColorStateList.valueOf(Color.rgb(255, 165, 0)); // Orange
+    private static final ColorStateList STRONG_TINT = ColorStateList.valueOf(Color.GREEN);
+    // How long typing has to pause before we look the password up in the breached list.
+    private static final long BREACH_CHECK_DELAY_MS = 250;
+
+    // Remembers the last password the breached-password check flagged.
+    private final BreachedPasswordRule breachedRule = new BreachedPasswordRule();
+    // Scores the password and checks it against our rules. More rules can be plugged in here.
+    private final PasswordStrengthScorer passwordScorer = new PasswordStrengthScorer()
+            .addRule(PasswordRule.minimumLength(MIN_PASSWORD_LENGTH, "Password must be at least 6 characters."))
+            .addRule(breachedRule);
+    // One matcher, reused for every check, instead of a new one per keystroke.
+    private final Matcher emailMatcher = Patterns.EMAIL_ADDRESS.matcher("");
+    private boolean isEmailValid, isPasswordValid, isConfirmPasswordValid;
+    private int shownStrengthLevel = -1; // Which level the meter is showing right now.
+    // endregion
+
+    private UserStore.Request pendingSignUp; // The sign-up in progress, if any.
+
+    private BreachedPasswordChecker breachChecker;
+    private final Handler breachCheckHandler = new Handler(Looper.getMainLooper());
+    // Made once and re-posted, so a burst of typing only leads to one lookup.
+    private final Runnable breachCheck = () -> checkForBreach(false);
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -50,6 +80,7 @@ public class SignUpActivity extends AppCompatActivity {
         overridePendingTransition(R.anim.slide_in_up, R.anim.stay);
         setContentView(R.layout.activity_sign_up);
 
+        breachChecker = BreachedPasswordChecker.getInstance(this);
         initializeViews();
         setupValidation();
         setupClickListeners();
@@ -87,39 +118,43 @@ public class SignUpActivity extends AppCompatActivity {
 
     /**
      * This is where we set up all the real-time checks for the form fields.
+     * Each field only re-checks itself when it changes (the password also re-checks the
+     * confirmation, since that depends on it), and then we just update the button.
      */
     private void setupValidation() {
-        // This watcher is used on most fields to check the button state after any text change.
-        TextWatcher textWatcher = new TextWatcher() {
+        emailInput.addTextChangedListener(new AfterTextChangedWatcher() {
             @Override
-            public void beforeTextChanged(CharSequence s, int start, int count, int after) { /* Not needed */ }
+            public void afterTextChanged(Editable s) {
+                isEmailValid = isValidEmail(s);
+                updateSignupButton();
+            }
+        });
 
+        // The password field also drives the strength meter.
+        passwordInput.addTextChangedListener(new AfterTextChangedWatcher() {
             @Override
-            public void onTextChanged(CharSequence s, int start, int before, int count) { /* Not needed */ }
+            public void afterTextChanged(Editable s) {
+                passwordScorer.analyze(s);
+                isPasswordValid = passwordScorer.isAcceptable();
+                updatePasswordStrength(s.length() == 0);
+                isConfirmPasswordValid = TextUtils.equals(s, confirmPasswordInput.getText());
+                updateSignupButton();
+
+                // Once they stop typing, see whether it's a known breached password.
+                breachCheckHandler.removeCallbacks(breachCheck);
+                if (isPasswordValid) {
+                    breachCheckHandler.postDelayed(breachCheck, BREACH_CHECK_DELAY_MS);
+                }
+            }
+        });
 
+        confirmPasswordInput.addTextChangedListener(new AfterTextChangedWatcher() {
             @Override
             public void afterTextChanged(Editable s) {
-                validateAllFields();
+                isConfirmPasswordValid = TextUtils.equals(passwordInput.getText(), s);
+                updateSignupButton();
             }
-        };
-
-        emailInput.addTextChangedListener(textWatcher);
-        confirmPasswordInput.addTextChangedListener(textWatcher);
-
-        // The password field gets a special watcher to update the strength meter.
-        passwordInput.addTextChangedListener(new TextWatcher() {
-             @Override
-             public void beforeTextChanged(CharSequence s, int start, int count, int after) { /* Not needed */ }
-
-             @Override
-             public void onTextChanged(CharSequence s, int start, int before, int count) { /* Not needed */ }
-
-             @Override
-             public void afterTextChanged(Editable s) {
-                 updatePasswordStrength(s.toString());
-                 validateAllFields();
-             }
-         });
+        });
 
         // We use a focus change listener to avoid showing errors while the user is still typing.
         // The error will only appear after they move to the next field.
@@ -134,6 +169,18 @@ public class SignUpActivity extends AppCompatActivity {
         confirmPasswordInput.setOnFocusChangeListener(focusChangeListener);
     }
 
+    /**
+     * We only ever care about afterTextChanged, so this saves writing out the other two
+     * empty methods each time.
+     */
+    private abstract static class AfterTextChangedWatcher implements TextWatcher {
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) { /* Not needed */ }
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) { /* Not needed */ }
+    }
+
     /**
      * Central place to set up our click listeners.
      */
@@ -145,46 +192,38 @@ public class SignUpActivity extends AppCompatActivity {
     }
 
     /**
-     * Updates the password strength meter based on the current password.
-     * @param password The text from the password input field.
+     * Updates the password strength meter from the scorer's latest result. The colours are
+     * made once up front, and we only touch the views when the level actually changes.
+     * @param isEmpty Whether the password field is empty (then we hide the meter).
      */
-    private void updatePasswordStrength(String password) {
-        if (password.isEmpty()) {
+    private void updatePasswordStrength(boolean isEmpty) {
+        if (isEmpty) {
             passwordStrengthIndicator.setVisibility(View.GONE);
             return;
         }
 
         passwordStrengthIndicator.setVisibility(View.VISIBLE);
-        int score = calculatePasswordStrength(password);
+        int score = passwordScorer.getScore();
         passwordStrengthBar.setProgress(score);
 
         // Adjust the color and text of the indicator based on the score.
-        if (score < 30) {
+        int level = score < 30 ? STRENGTH_WEAK : score < 70 ? STRENGTH_MEDIUM : STRENGTH_STRONG;
+        if (level == shownStrengthLevel) {
+            return;
+        }
+        shownStrengthLevel = level;
+        if (level == STRENGTH_WEAK) {
             passwordStrengthText.setText("Weak");
-            passwordStrengthBar.setProgressTintList(ColorStateList.valueOf(Color.RED));
-        } else if (score < 70) {
+            passwordStrengthBar.setProgressTintList(WEAK_TINT);
+        } else if (level == STRENGTH_MEDIUM) {
             passwordStrengthText.setText("Medium");
-            passwordStrengthBar.setProgressTintList(ColorStateList.valueOf(Color.rgb(255, 165, 0))); // Orange
+            passwordStrengthBar.setProgressTintList(MEDIUM_TINT);
         } else {
             passwordStrengthText.setText("Strong");
-            passwordStrengthBar.setProgressTintList(ColorStateList.valueOf(Color.GREEN));
+            passwordStrengthBar.setProgressTintList(STRONG_TINT);
         }
     }
 
-    /**
-     * A simple algorithm to score a password.
-     * @param password The password to check.
-     * @return A score between 0 and 100.
-     */
-    private int calculatePasswordStrength(String password) {
-        int score = 0;
-        if (password.length() >= 8) score += 25;
-        if (password.matches(".*[0-9].*")) score += 25;
-        if (password.matches(".*[A-Z].*")) score += 25;
-        if (password.matches(".*[@#$%^&+=].*")) score += 25;
-        return score;
-    }
-
     /**
      * Makes the "Log in" portion of the text clickable, allowing the user to easily
      * return to the login screen.
@@ -222,11 +261,11 @@ public class SignUpActivity extends AppCompatActivity {
     }
 
     private boolean validateEmail() {
-        String email = Objects.requireNonNull(emailInput.getText()).toString().trim();
-        if (email.isEmpty()) {
+        Editable email = emailInput.getText();
+        if (email == null || TextUtils.getTrimmedLength(email) == 0) {
             emailLayout.setError("Email is required.");
             return false;
-        } else if (!Patterns.EMAIL_ADDRESS.matcher(email).matches()) {
+        } else if (!isValidEmail(email)) {
             emailLayout.setError("Invalid email format.");
             return false;
         } else {
@@ -236,20 +275,14 @@ public class SignUpActivity extends AppCompatActivity {
     }
 
     private boolean validatePassword() {
-        String password = Objects.requireNonNull(passwordInput.getText()).toString();
-        if (password.length() < 6) {
-            passwordLayout.setError("Password must be at least 6 characters.");
-            return false;
-        } else {
-            passwordLayout.setError(null);
-            return true;
-        }
+        passwordScorer.analyze(Objects.requireNonNull(passwordInput.getText()));
+        // Whichever rule failed first tells us what to say.
+        passwordLayout.setError(passwordScorer.getProblem());
+        return passwordScorer.isAcceptable();
     }
 
     private boolean validateConfirmPassword() {
-        String password = Objects.requireNonNull(passwordInput.getText()).toString();
-        String confirmPassword = Objects.requireNonNull(confirmPasswordInput.getText()).toString();
-        if (!password.equals(confirmPassword)) {
+        if (!TextUtils.equals(passwordInput.getText(), confirmPasswordInput.getText())) {
             confirmPasswordLayout.setError("Passwords do not match.");
             return false;
         } else {
@@ -259,16 +292,49 @@ public class SignUpActivity extends AppCompatActivity {
     }
 
     /**
-     * Silently checks all fields to decide if the main sign-up button should be active.
-     * Doesn't show error messages, just updates the button state.
+     * Checks an email address without copying or trimming the text: we point the (reused)
+     * matcher at just the part between any leading and trailing spaces.
      */
-    private void validateAllFields() {
-        boolean isEmailValid = Patterns.EMAIL_ADDRESS.matcher(Objects.requireNonNull(emailInput.getText()).toString().trim()).matches();
-        boolean isPasswordValid = Objects.requireNonNull(passwordInput.getText()).toString().length() >= 6;
-        boolean isConfirmPasswordValid = Objects.requireNonNull(passwordInput.getText()).toString().equals(Objects.requireNonNull(confirmPasswordInput.getText()).toString());
+    private boolean isValidEmail(CharSequence email) {
+        int start = 0;
+        int end = email.length();
+        while (start < end && email.charAt(start) <= ' ') start++;
+        while (end > start && email.charAt(end - 1) <= ' ') end--;
+        return emailMatcher.reset(email).region(start, end).matches();
+    }
 
-        signupButton.setEnabled(isEmailValid && isPasswordValid && isConfirmPasswordValid);
-        signupButton.setAlpha(isEmailValid && isPasswordValid && isConfirmPasswordValid ? 1.0f : 0.5f);
+    /**
+     * Looks the current password up in the breached list (in the background). If it's there,
+     * the password rule starts failing with a message saying so, and we show it right away.
+     *
+     * @param thenSignUp Carry on with the sign-up if the password turns out to be fine.
+     */
+    private void checkForBreach(boolean thenSignUp) {
+        String password = Objects.requireNonNull(passwordInput.getText()).toString();
+        breachChecker.check(password, breached -> {
+            if (isDestroyed()) {
+                return;
+            }
+            // They might have kept typing while we looked, so only act on the password we checked.
+            boolean stillCurrent = TextUtils.equals(passwordInput.getText(), password);
+            if (breached && stillCurrent) {
+                breachedRule.markBreached(password);
+                isPasswordValid = validatePassword();
+                updateSignupButton();
+            } else if (thenSignUp && stillCurrent) {
+                register();
+            }
+        });
+    }
+
+    /**
+     * Enables the sign-up button only when every field is valid. The fields keep their own
+     * flags up to date, so this doesn't re-check anything.
+     */
+    private void updateSignupButton() {
+        boolean allValid = isEmailValid && isPasswordValid && isConfirmPasswordValid;
+        signupButton.setEnabled(allValid);
+        signupButton.setAlpha(allValid ? 1.0f : 0.5f);
     }
 
     /**
@@ -284,23 +350,51 @@ public class SignUpActivity extends AppCompatActivity {
             return; // Don't proceed if something is wrong.
         }
 
+        // Make sure the password isn't a breached one first. The typing check has usually done
+        // this already, but they might have tapped before it ran.
+        breachCheckHandler.removeCallbacks(breachCheck);
+        signupButton.setEnabled(false); // No double sign-ups while we look.
+        checkForBreach(true);
+    }
+
+    /**
+     * Actually creates the account, once every check has passed.
+     */
+    private void register() {
         // Switch to a loading state.
         signupButton.setText("");
         loadingProgressBar.setVisibility(View.VISIBLE);
         signupButton.setEnabled(false);
 
-        // Fake a 2-second network call.
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
+        // Hash the password and save the account in the background.
+        String email = Objects.requireNonNull(emailInput.getText()).toString();
+        String password = Objects.requireNonNull(passwordInput.getText()).toString();
+        pendingSignUp = UserStore.getInstance(this).register(email, password, created -> {
+            pendingSignUp = null;
             // Restore the button.
             signupButton.setText("Sign Up");
             loadingProgressBar.setVisibility(View.GONE);
             signupButton.setEnabled(true);
 
+            if (!created) {
+                emailLayout.setError("An account with this email already exists.");
+                return;
+            }
+            // The toast stays up after we close, so there's no need to hang around for it.
             Toast.makeText(this, "Sign up successful!", Toast.LENGTH_SHORT).show();
+            finish();
+        });
+    }
 
-            // Give the user a moment to see the success message before finishing.
-            new Handler(Looper.getMainLooper()).postDelayed(this::finish, 1000);
-
-        }, 2000);
+    /**
+     * If the screen goes away mid-sign-up, don't call back into it.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        breachCheckHandler.removeCallbacks(breachCheck);
+        if (pendingSignUp != null) {
+            pendingSignUp.cancel();
+        }
     }
 }
@@ -0,0 +1,140 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the work the app needs before the login screen can show, all at the same time on
+ * background threads, and says when it's done. The splash screen stays up exactly that long.
+ *
+ * It also times every task and the whole cold start, then logs the numbers and appends them
+ * to a small CSV file, so we can see whether startup gets faster or slower between releases.
+ */
+public class StartupInitializer {
+
+    private static final String TAG = "StartupTimings";
+    private static final String TIMINGS_FILE = "startup_timings.csv";
+
+    /**
+     * Called on the main thread once every task has finished.
+     */
+    public interface OnReadyListener {
+        void onReady();
+    }
+
+    private final Context appContext;
+    private final Map<String, Runnable> tasks = new LinkedHashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public StartupInitializer(Context context) {
+        appContext = context.getApplicationContext();
+    }
+
+    /**
+     * Adds a piece of startup work. It'll run on its own background thread, so it must not
+     * touch any views.
+     *
+     * @param name What to call it in the timings, e.g. "preferences".
+     */
+    public StartupInitializer addTask(String name, Runnable task) {
+        tasks.put(name, task);
+        return this;
+    }
+
+    /**
+     * Kicks off every task in parallel.
+     *
+     * @param listener Told on the main thread when they're all done (even if one of them failed,
+     *                 since a broken cache shouldn't stop anyone logging in).
+     */
+    public void start(OnReadyListener listener) {
+        long startedAt = SystemClock.elapsedRealtime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, tasks.size()));
+        Map<String, Long> taskTimes = new LinkedHashMap<>();
+        List<String> names = new ArrayList<>(tasks.keySet());
+        int[] remaining = {names.size()}; // Only ever touched on the main thread.
+
+        if (names.isEmpty()) {
+            mainHandler.post(listener::onReady);
+            executor.shutdown();
+            return;
+        }
+
+        for (String name : names) {
+            Runnable task = tasks.get(name);
+            executor.execute(() -> {
+                long taskStart = SystemClock.elapsedRealtime();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Startup task " + name + " failed", e);
+                }
+                long taskTime = SystemClock.elapsedRealtime() - taskStart;
+
+                mainHandler.post(() -> {
+                    taskTimes.put(name, taskTime);
+                    if (--remaining[0] == 0) {
+                        long total = SystemClock.elapsedRealtime() - startedAt;
+                        long sinceProcessStart = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+                        listener.onReady();
+                        executor.execute(() -> recordTimings(sinceProcessStart, total, taskTimes));
+                        executor.shutdown();
+                    }
+                });
+            });
+        }
+    }
+
+    /**
+     * Logs how long startup took and adds a line to the timings file. The "since process start"
+     * figure is the number to watch: it's what the user actually waited through.
+     */
+    private void recordTimings(long sinceProcessStart, long initTime, Map<String, Long> taskTimes) {
+        StringBuilder line = new StringBuilder()
+                .append(System.currentTimeMillis()).append(',')
+                .append(appVersion()).append(',')
+                .append(sinceProcessStart).append(',')
+                .append(initTime).append(',');
+        String separator = "";
+        for (Map.Entry<String, Long> entry : taskTimes.entrySet()) {
+            line.append(separator).append(entry.getKey()).append('=').append(entry.getValue());
+            separator = ";";
+        }
+        Log.i(TAG, "Startup ready: " + line);
+
+        File file = new File(appContext.getFilesDir(), TIMINGS_FILE);
+        boolean isNew = !file.exists();
+        try (Writer writer = new FileWriter(file, true)) {
+            if (isNew) {
+                writer.write("timestamp,version,since_process_start_ms,init_ms,tasks_ms\n");
+            }
+            writer.write(line.append('\n').toString());
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't save startup timings", e);
+        }
+    }
+
+    private String appVersion() {
+        try {
+            return appContext.getPackageManager().getPackageInfo(appContext.getPackageName(), 0).versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
+        }
+    }
+}
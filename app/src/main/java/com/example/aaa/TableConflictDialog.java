@@ -0,0 +1,54 @@
+package com.example.aaa;
+
+import android.app.AlertDialog;
+import android.content.Context;
+
+import java.util.List;
+
+/**
+ * The little popup we show when someone tries to book a table that's already taken.
+ * It lists the nearest free times and lets staff pick one with a single tap.
+ * Both the add and edit reservation screens use it.
+ */
+public final class TableConflictDialog {
+
+    // How many alternative times we offer.
+    public static final int MAX_SUGGESTIONS = 4;
+
+    /**
+     * Called with the "HH:MM" time the user picked from the suggestions.
+     */
+    public interface OnTimePickedListener {
+        void onTimePicked(String time);
+    }
+
+    private TableConflictDialog() {
+        // Just a holder for the static method below.
+    }
+
+    /**
+     * Shows the conflict popup.
+     *
+     * @param tableNumber The table that's already booked.
+     * @param freeSlots   Nearby free start times, as epoch minutes, nearest first.
+     * @param listener    What to do when the user picks one of them.
+     */
+    public static void show(Context context, int tableNumber, List<Integer> freeSlots,
+                            OnTimePickedListener listener) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(context)
+                .setTitle("Table " + tableNumber + " is already booked")
+                .setNegativeButton("Cancel", null);
+
+        if (freeSlots.isEmpty()) {
+            builder.setMessage("There are no free times for this table nearby. Try another table.");
+        } else {
+            // Turn the suggestions into readable times for the list.
+            String[] times = new String[freeSlots.size()];
+            for (int i = 0; i < times.length; i++) {
+                times[i] = ReservationTime.formatTime(freeSlots.get(i));
+            }
+            builder.setItems(times, (dialog, which) -> listener.onTimePicked(times[which]));
+        }
+        builder.show();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.aaa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Works out whether a table is already taken at a given time. Every booking holds its table for
+ * the same seating window (90 minutes by default), so for each table we just keep the booking
+ * start times in a sorted set. Two bookings clash exactly when their starts are less than one
+ * window apart, which turns "is table N free at 19:30?" into a single range lookup: O(log n).
+ *
+ * Times are packed epoch minutes (see ReservationTime), so comparing them is just integer maths.
+ */
+public class TableConflictEngine {
+
+    // How long a party usually keeps a table.
+    public static final int DEFAULT_SEATING_MINUTES = 90;
+    // When suggesting other times, we move in steps of this many minutes...
+    private static final int SUGGESTION_STEP_MINUTES = 15;
+    // ...and never look further away than this.
+    private static final int SUGGESTION_RANGE_MINUTES = 6 * 60;
+
+    private final int seatingMinutes;
+    // Table number -> sorted booking keys. Each key packs the start minute (high 32 bits) with
+    // the reservation ID (low 32 bits), so two bookings at the same time can't collide.
+    private final Map<Integer, TreeSet<Long>> bookingsByTable = new HashMap<>();
+
+    public TableConflictEngine() {
+        this(DEFAULT_SEATING_MINUTES);
+    }
+
+    public TableConflictEngine(int seatingMinutes) {
+        this.seatingMinutes = seatingMinutes;
+    }
+
+    /**
+     * Builds an engine from a bunch of existing reservations.
+     */
+    public static TableConflictEngine fromReservations(List<Reservation> reservations) {
+        TableConflictEngine engine = new TableConflictEngine();
+        for (Reservation reservation : reservations) {
+            engine.add(reservation.getId(), reservation.getTableNumber(), reservation.getSlot());
+        }
+        return engine;
+    }
+
+    /**
+     * Records that a table is booked from the given start minute.
+     */
+    public void add(long reservationId, int tableNumber, int startMinute) {
+        TreeSet<Long> bookings = bookingsByTable.get(tableNumber);
+        if (bookings == null) {
+            bookings = new TreeSet<>();
+            bookingsByTable.put(tableNumber, bookings);
+        }
+        bookings.add(key(startMinute, reservationId));
+    }
+
+    /**
+     * Forgets a booking, e.g. when it's been cancelled.
+     */
+    public void remove(long reservationId, int tableNumber, int startMinute) {
+        TreeSet<Long> bookings = bookingsByTable.get(tableNumber);
+        if (bookings != null) {
+            bookings.remove(key(startMinute, reservationId));
+        }
+    }
+
+    /**
+     * Checks whether a table is free for a full seating window starting at startMinute.
+     *
+     * @param ignoreId A reservation to leave out of the check (the one being edited), or 0.
+     */
+    public boolean isFree(int tableNumber, int startMinute, long ignoreId) {
+        TreeSet<Long> bookings = bookingsByTable.get(tableNumber);
+        if (bookings == null) {
+            return true;
+        }
+        // Anything that starts strictly within one window either side of us is a clash.
+        NavigableSet<Long> clashes = bookings.subSet(
+                key(startMinute - seatingMinutes + 1, 0), true,
+                key(startMinute + seatingMinutes - 1, 0xFFFFFFFFL), true);
+        for (long clash : clashes) {
+            if ((clash & 0xFFFFFFFFL) != (ignoreId & 0xFFFFFFFFL)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the free start times closest to the one that was asked for, nearest first.
+     * Suggestions always stay on the same day as the requested time.
+     *
+     * @param maxResults How many suggestions we want at most.
+     */
+    public List<Integer> nearestFreeSlots(int tableNumber, int startMinute, long ignoreId, int maxResults) {
+        List<Integer> slots = new ArrayList<>(maxResults);
+        int dayStart = ReservationTime.startOfDay(startMinute);
+        int dayEnd = dayStart + ReservationTime.MINUTES_PER_DAY;
+        for (int offset = SUGGESTION_STEP_MINUTES;
+             offset <= SUGGESTION_RANGE_MINUTES && slots.size() < maxResults;
+             offset += SUGGESTION_STEP_MINUTES) {
+            // Try a bit earlier first, then a bit later.
+            int earlier = startMinute - offset;
+            if (earlier >= dayStart && isFree(tableNumber, earlier, ignoreId)) {
+                slots.add(earlier);
+            }
+            int later = startMinute + offset;
+            if (slots.size() < maxResults && later < dayEnd && isFree(tableNumber, later, ignoreId)) {
+                slots.add(later);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * How much idle time a booking at startMinute would leave on this table: the gap back to
+     * the end of the booking before it, plus the gap up to the next one. With no booking on a
+     * side, the gap runs to the edge of the day. Small numbers mean a snug fit.
+     *
+     * @param ignoreId A reservation to leave out (the one being edited), or 0.
+     */
+    public int idleMinutesAround(int tableNumber, int startMinute, long ignoreId) {
+        int dayStart = ReservationTime.startOfDay(startMinute);
+        int before = startMinute - dayStart;
+        int after = dayStart + ReservationTime.MINUTES_PER_DAY - (startMinute + seatingMinutes);
+        TreeSet<Long> bookings = bookingsByTable.get(tableNumber);
+        if (bookings != null) {
+            Long previous = bookings.lower(key(startMinute, 0));
+            while (previous != null && sameId(previous, ignoreId)) {
+                previous = bookings.lower(previous);
+            }
+            if (previous != null) {
+                before = Math.min(before, startMinute - ((int) (previous >> 32) + seatingMinutes));
+            }
+            Long next = bookings.higher(key(startMinute, 0));
+            while (next != null && sameId(next, ignoreId)) {
+                next = bookings.higher(next);
+            }
+            if (next != null) {
+                after = Math.min(after, (int) (next >> 32) - (startMinute + seatingMinutes));
+            }
+        }
+        return Math.max(0, before) + Math.max(0, after);
+    }
+
+    private static boolean sameId(long key, long reservationId) {
+        return (key & 0xFFFFFFFFL) == (reservationId & 0xFFFFFFFFL);
+    }
+
+    private static long key(int startMinute, long reservationId) {
+        return ((long) startMinute << 32) | (reservationId & 0xFFFFFFFFL);
+    }
+}
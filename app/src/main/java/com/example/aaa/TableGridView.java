@@ -0,0 +1,245 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.OverScroller;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.BitSet;
+
+/**
+ * A time x table grid for one evening: a row per table, a column per 15-minute slot, with the
+ * booked stretches filled in. Hosts can drag and fling it in both directions, and the table
+ * numbers and times stay pinned to the edges.
+ *
+ * It's drawn straight onto the canvas instead of being built from hundreds of little views.
+ * Every frame only touches the cells that are actually on screen, and each row comes from a
+ * single long in TableOccupancy, so a booked stretch is one rectangle no matter how many slots
+ * it covers. All the paints and labels are made up front, so drawing allocates nothing.
+ */
+public class TableGridView extends View {
+
+    private final float density = getResources().getDisplayMetrics().density;
+    private final float cellWidth = 44 * density;
+    private final float rowHeight = 40 * density;
+    private final float headerHeight = 32 * density;
+    private final float labelWidth = 64 * density;
+    private final float cellGap = 2 * density;
+
+    private final Paint gridPaint = new Paint();
+    private final Paint bookedPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint headerPaint = new Paint();
+
+    private final OverScroller scroller;
+    private final GestureDetector gestures;
+
+    private TableOccupancy occupancy;
+    private String[] timeLabels = new String[0]; // One per slot; only the hours get drawn.
+    private String[] tableLabels = new String[0];
+    private int scrollXPx;
+    private int scrollYPx;
+
+    public TableGridView(Context context) {
+        this(context, null);
+    }
+
+    public TableGridView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        gridPaint.setColor(Color.rgb(235, 235, 235));
+        bookedPaint.setColor(context.getColor(R.color.orange));
+        labelPaint.setColor(Color.DKGRAY);
+        labelPaint.setTextSize(12 * density);
+        headerPaint.setColor(Color.WHITE);
+
+        scroller = new OverScroller(context);
+        gestures = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                scroller.forceFinished(true);
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float dx, float dy) {
+                scrollGridTo(scrollXPx + Math.round(dx), scrollYPx + Math.round(dy));
+                return true;
+            }
+
+            @Override
+            public boolean onFling(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float vx, float vy) {
+                scroller.fling(scrollXPx, scrollYPx, -Math.round(vx), -Math.round(vy),
+                        0, maxScrollX(), 0, maxScrollY());
+                postInvalidateOnAnimation();
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Shows a new evening. The labels are worked out here, once, rather than while drawing.
+     */
+    public void setOccupancy(TableOccupancy occupancy) {
+        this.occupancy = occupancy;
+        occupancy.takeDirtyRows(); // We're drawing everything anyway.
+        timeLabels = new String[TableOccupancy.SLOT_COUNT];
+        for (int slot = 0; slot < timeLabels.length; slot++) {
+            timeLabels[slot] = ReservationTime.formatTime(occupancy.slotStart(slot));
+        }
+        refreshTableLabels();
+        scrollGridTo(scrollXPx, scrollYPx); // Keep the position, but stay in bounds.
+        invalidate();
+    }
+
+    /**
+     * Call after changing bookings in the occupancy. Only the rows that changed are looked at,
+     * and if none of them are on screen we don't redraw at all.
+     */
+    public void onBookingsChanged() {
+        if (occupancy == null) {
+            return;
+        }
+        BitSet dirty = occupancy.takeDirtyRows();
+        if (dirty == null) {
+            refreshTableLabels(); // New rows appeared.
+            scrollGridTo(scrollXPx, scrollYPx);
+            invalidate();
+            return;
+        }
+        int firstVisible = firstVisibleRow();
+        int lastVisible = lastVisibleRow();
+        int next = dirty.nextSetBit(firstVisible);
+        if (next >= 0 && next <= lastVisible) {
+            invalidate();
+        }
+    }
+
+    private void refreshTableLabels() {
+        tableLabels = new String[occupancy.getRowCount()];
+        for (int row = 0; row < tableLabels.length; row++) {
+            tableLabels[row] = DisplayLabels.table(occupancy.getTableNumber(row));
+        }
+    }
+
+    // --- Scrolling ---
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        return gestures.onTouchEvent(event) || super.onTouchEvent(event);
+    }
+
+    @Override
+    public void computeScroll() {
+        if (scroller.computeScrollOffset()) {
+            scrollGridTo(scroller.getCurrX(), scroller.getCurrY());
+            postInvalidateOnAnimation();
+        }
+    }
+
+    private void scrollGridTo(int x, int y) {
+        int clampedX = Math.max(0, Math.min(x, maxScrollX()));
+        int clampedY = Math.max(0, Math.min(y, maxScrollY()));
+        if (clampedX != scrollXPx || clampedY != scrollYPx) {
+            scrollXPx = clampedX;
+            scrollYPx = clampedY;
+            invalidate();
+        }
+    }
+
+    private int maxScrollX() {
+        float content = TableOccupancy.SLOT_COUNT * cellWidth;
+        return (int) Math.max(0, content - (getWidth() - labelWidth));
+    }
+
+    private int maxScrollY() {
+        float content = (occupancy == null ? 0 : occupancy.getRowCount()) * rowHeight;
+        return (int) Math.max(0, content - (getHeight() - headerHeight));
+    }
+
+    private int firstVisibleRow() {
+        return (int) (scrollYPx / rowHeight);
+    }
+
+    private int lastVisibleRow() {
+        int last = (int) ((scrollYPx + getHeight() - headerHeight) / rowHeight);
+        return Math.min(last, occupancy.getRowCount() - 1);
+    }
+
+    // --- Drawing ---
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (occupancy == null) {
+            return;
+        }
+        int firstRow = firstVisibleRow();
+        int lastRow = lastVisibleRow();
+        int firstSlot = (int) (scrollXPx / cellWidth);
+        int lastSlot = Math.min(TableOccupancy.SLOT_COUNT - 1,
+                (int) ((scrollXPx + getWidth() - labelWidth) / cellWidth));
+
+        // The cells, clipped so they slide under the pinned headers.
+        canvas.save();
+        canvas.clipRect(labelWidth, headerHeight, getWidth(), getHeight());
+        float originX = labelWidth - scrollXPx;
+        float originY = headerHeight - scrollYPx;
+        for (int slot = firstSlot; slot <= lastSlot + 1; slot++) {
+            float x = originX + slot * cellWidth;
+            canvas.drawLine(x, headerHeight, x, getHeight(), gridPaint);
+        }
+        for (int row = firstRow; row <= lastRow; row++) {
+            float top = originY + row * rowHeight;
+            canvas.drawLine(labelWidth, top + rowHeight, getWidth(), top + rowHeight, gridPaint);
+            drawBookedRuns(canvas, occupancy.getOccupiedSlots(row), originX, top);
+        }
+        canvas.restore();
+
+        // The time header along the top, on the hour.
+        canvas.drawRect(labelWidth, 0, getWidth(), headerHeight, headerPaint);
+        float textBaseline = headerHeight * 0.65f;
+        for (int slot = firstSlot; slot <= lastSlot; slot++) {
+            if ((occupancy.slotStart(slot) % 60) == 0) {
+                float x = originX + slot * cellWidth + cellGap;
+                if (x >= labelWidth - cellWidth) {
+                    canvas.drawText(timeLabels[slot], Math.max(x, labelWidth), textBaseline, labelPaint);
+                }
+            }
+        }
+
+        // The table numbers down the side.
+        canvas.drawRect(0, headerHeight, labelWidth, getHeight(), headerPaint);
+        canvas.save();
+        canvas.clipRect(0, headerHeight, labelWidth, getHeight());
+        for (int row = firstRow; row <= lastRow; row++) {
+            float baseline = originY + row * rowHeight + rowHeight * 0.6f;
+            canvas.drawText(tableLabels[row], cellGap * 4, baseline, labelPaint);
+        }
+        canvas.restore();
+        canvas.drawRect(0, 0, labelWidth, headerHeight, headerPaint);
+    }
+
+    /**
+     * Draws each stretch of booked slots in a row as one rounded block.
+     */
+    private void drawBookedRuns(Canvas canvas, long bits, float originX, float top) {
+        while (bits != 0) {
+            int start = Long.numberOfTrailingZeros(bits);
+            int length = Long.numberOfTrailingZeros(~(bits >>> start));
+            float left = originX + start * cellWidth + cellGap;
+            float right = originX + (start + length) * cellWidth - cellGap;
+            canvas.drawRoundRect(left, top + cellGap * 2, right, top + rowHeight - cellGap * 2,
+                    cellGap * 3, cellGap * 3, bookedPaint);
+            // Clear the run we just drew and carry on with the rest of the row.
+            bits &= length == 64 ? 0 : ~(((1L << length) - 1) << start);
+        }
+    }
+}
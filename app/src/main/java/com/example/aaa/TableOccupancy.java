@@ -0,0 +1,207 @@
+package com.example.aaa;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which tables are taken when, across one service (by default 10:00 to midnight), in 15-minute
+ * steps. It's what the reservations grid draws from.
+ *
+ * Each table's whole evening fits in a single long: bit i is set when the table is taken during
+ * step i. So drawing a row is a few bit tricks rather than a search through bookings, and
+ * "is table 5 free at 19:30" is one AND.
+ *
+ * When a booking is added, moved or removed, only the tables it touched are worked out again,
+ * and they're flagged as dirty so the grid knows which rows to redraw.
+ */
+public class TableOccupancy {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOT_COUNT = 56; // 14 hours; must stay at 64 or less to fit in a long.
+    public static final int DEFAULT_OPENING_MINUTE = 10 * 60; // 10:00.
+
+    /**
+     * One table's row in the grid.
+     */
+    private static class Row {
+        final int tableNumber;
+        final Map<Long, Integer> startsById = new HashMap<>(); // Its bookings: reservation ID -> start.
+        long occupied; // Bit i set = taken during slot i.
+
+        Row(int tableNumber) {
+            this.tableNumber = tableNumber;
+        }
+    }
+
+    private final int windowStart;    // Epoch minute of slot 0.
+    private final int seatingMinutes;
+    // Rows in table-number order. Tables 1..tableCount always have a row, even if they're empty.
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<Integer, Row> rowsByTable = new HashMap<>();
+    private final Map<Long, Row> rowsById = new HashMap<>();
+
+    private final BitSet dirtyRows = new BitSet();
+    private boolean layoutChanged; // A row was added, so every row below it moved.
+
+    /**
+     * @param windowStart    The epoch minute the grid starts at (see {@link #forDay}).
+     * @param tableCount     How many tables the restaurant has; each gets a row from the start.
+     * @param seatingMinutes How long each booking holds its table.
+     */
+    public TableOccupancy(int windowStart, int tableCount, int seatingMinutes) {
+        this.windowStart = windowStart;
+        this.seatingMinutes = seatingMinutes;
+        for (int table = 1; table <= tableCount; table++) {
+            rowFor(table);
+        }
+        layoutChanged = false;
+    }
+
+    /**
+     * A grid for one day's service, from DEFAULT_OPENING_MINUTE.
+     *
+     * @param dayStart The epoch minute of midnight at the start of the day.
+     */
+    public static TableOccupancy forDay(int dayStart, int tableCount) {
+        return new TableOccupancy(dayStart + DEFAULT_OPENING_MINUTE, tableCount,
+                TableConflictEngine.DEFAULT_SEATING_MINUTES);
+    }
+
+    /**
+     * The first and last epoch minutes worth loading bookings for: anything that starts in this
+     * range can show up in the grid (including a late lunch that's still seated at opening).
+     */
+    public int getLoadFrom() {
+        return windowStart - seatingMinutes + 1;
+    }
+
+    public int getLoadTo() {
+        return windowStart + SLOT_COUNT * SLOT_MINUTES;
+    }
+
+    public int getWindowStart() {
+        return windowStart;
+    }
+
+    // --- Changing bookings ---
+
+    /**
+     * Adds a booking, or moves it if we already have one with this ID.
+     */
+    public void put(long reservationId, int tableNumber, int startMinute) {
+        remove(reservationId);
+        Row row = rowFor(tableNumber);
+        row.startsById.put(reservationId, startMinute);
+        rowsById.put(reservationId, row);
+        recompute(row);
+    }
+
+    /**
+     * Takes a booking out, e.g. when it's cancelled. Does nothing if we don't have it.
+     */
+    public void remove(long reservationId) {
+        Row row = rowsById.remove(reservationId);
+        if (row != null) {
+            row.startsById.remove(reservationId);
+            recompute(row);
+        }
+    }
+
+    /**
+     * Adds a batch of bookings, e.g. when the grid first loads.
+     */
+    public void putAll(List<Reservation> reservations) {
+        for (Reservation reservation : reservations) {
+            put(reservation.getId(), reservation.getTableNumber(), reservation.getSlot());
+        }
+    }
+
+    private Row rowFor(int tableNumber) {
+        Row row = rowsByTable.get(tableNumber);
+        if (row == null) {
+            row = new Row(tableNumber);
+            rowsByTable.put(tableNumber, row);
+            // Keep the rows in table order. New tables are rare, so a linear insert is fine.
+            int index = 0;
+            while (index < rows.size() && rows.get(index).tableNumber < tableNumber) {
+                index++;
+            }
+            rows.add(index, row);
+            layoutChanged = true;
+        }
+        return row;
+    }
+
+    private void recompute(Row row) {
+        long occupied = 0;
+        for (int start : row.startsById.values()) {
+            occupied |= slotMask(start - windowStart, seatingMinutes);
+        }
+        if (occupied != row.occupied) {
+            row.occupied = occupied;
+            dirtyRows.set(rows.indexOf(row));
+        }
+    }
+
+    /**
+     * The bits covering a booking that starts this many minutes after slot 0 and lasts this
+     * long. Any slot it overlaps at all counts as taken. Parts outside the grid are cut off.
+     */
+    static long slotMask(int offsetMinutes, int durationMinutes) {
+        int first = Math.floorDiv(offsetMinutes, SLOT_MINUTES);
+        int last = Math.floorDiv(offsetMinutes + durationMinutes - 1, SLOT_MINUTES);
+        first = Math.max(first, 0);
+        last = Math.min(last, SLOT_COUNT - 1);
+        if (first > last) {
+            return 0;
+        }
+        int length = last - first + 1;
+        long run = length == 64 ? -1L : (1L << length) - 1;
+        return run << first;
+    }
+
+    // --- Reading it back ---
+
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    public int getTableNumber(int row) {
+        return rows.get(row).tableNumber;
+    }
+
+    /**
+     * The row's slots as bits: bit i is set when the table is taken during slot i.
+     */
+    public long getOccupiedSlots(int row) {
+        return rows.get(row).occupied;
+    }
+
+    public boolean isOccupied(int row, int slot) {
+        return (rows.get(row).occupied & (1L << slot)) != 0;
+    }
+
+    /**
+     * The epoch minute a slot starts at.
+     */
+    public int slotStart(int slot) {
+        return windowStart + slot * SLOT_MINUTES;
+    }
+
+    // --- What changed since the grid last drew ---
+
+    /**
+     * Hands over the rows that changed since the last call and starts afresh.
+     *
+     * @return The changed row indexes, or null if rows were added and everything should be redrawn.
+     */
+    public BitSet takeDirtyRows() {
+        BitSet dirty = layoutChanged ? null : (BitSet) dirtyRows.clone();
+        dirtyRows.clear();
+        layoutChanged = false;
+        return dirty;
+    }
+}
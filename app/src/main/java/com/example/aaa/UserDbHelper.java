@@ -0,0 +1,65 @@
+package com.example.aaa;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Creates and opens the SQLite database that holds everyone's login details.
+ * The email is the primary key, so finding one account is an index lookup no matter how many
+ * accounts there are. Passwords are only ever stored as salted hashes (see PasswordHasher).
+ */
+public class UserDbHelper extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "users.db";
+    private static final int DATABASE_VERSION = 1;
+
+    // Table and column names, so we don't have magic strings all over the place.
+    public static final String TABLE_USERS = "users";
+    public static final String COLUMN_EMAIL = "email"; // Always trimmed and lower-cased.
+    public static final String COLUMN_IS_STAFF = "is_staff";
+    public static final String COLUMN_SALT = "salt";
+    public static final String COLUMN_HASH = "password_hash";
+    public static final String COLUMN_ITERATIONS = "iterations";
+
+    public UserDbHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_USERS + " ("
+                + COLUMN_EMAIL + " TEXT PRIMARY KEY, "
+                + COLUMN_IS_STAFF + " INTEGER NOT NULL, "
+                + COLUMN_SALT + " BLOB NOT NULL, "
+                + COLUMN_HASH + " BLOB NOT NULL, "
+                + COLUMN_ITERATIONS + " INTEGER NOT NULL) WITHOUT ROWID");
+
+        // The accounts the app used to hard-code, so existing testers can still get in.
+        insertAccount(db, "admin", "admin123", true);
+        insertAccount(db, "test@example.com", "password123", false);
+        insertAccount(db, "user@domain.com", "password123", false);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Nothing to migrate yet.
+    }
+
+    /**
+     * Hashes a password and stores a new account.
+     *
+     * @return false if there's already an account with that email.
+     */
+    static boolean insertAccount(SQLiteDatabase db, String email, String password, boolean isStaff) {
+        byte[] salt = PasswordHasher.newSalt();
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_EMAIL, email);
+        values.put(COLUMN_IS_STAFF, isStaff ? 1 : 0);
+        values.put(COLUMN_SALT, salt);
+        values.put(COLUMN_HASH, PasswordHasher.hash(password.toCharArray(), salt, PasswordHasher.DEFAULT_ITERATIONS));
+        values.put(COLUMN_ITERATIONS, PasswordHasher.DEFAULT_ITERATIONS);
+        return db.insertWithOnConflict(TABLE_USERS, null, values, SQLiteDatabase.CONFLICT_IGNORE) != -1;
+    }
+}
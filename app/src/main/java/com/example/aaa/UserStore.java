@@ -0,0 +1,177 @@
+package com.example.aaa;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Everyone who can log in, stored on disk by email with a hashed password.
+ *
+ * Checking a password means running PBKDF2, which is deliberately slow, so all of it happens on
+ * a background thread and the answer comes back through a callback on the main thread.
+ * Every call hands back a Request, so a screen that closes early can cancel it.
+ * Looking an account up is a primary-key lookup, so it takes about the same time whether we
+ * have ten accounts or a hundred thousand.
+ */
+public class UserStore {
+
+    /**
+     * A tiny callback for handing results back. It's always called on the main thread,
+     * so it's safe to touch views from inside it.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * Someone who has just logged in successfully.
+     */
+    public static class User {
+        public final String email;
+        public final boolean isStaff; // Staff get the dashboard, everyone else is a guest.
+
+        User(String email, boolean isStaff) {
+            this.email = email;
+            this.isStaff = isStaff;
+        }
+    }
+
+    /**
+     * A sign-in or sign-up that's in progress. Cancel it when the screen that asked goes away:
+     * if the work hasn't started it's dropped, and either way the callback won't be called.
+     */
+    public static class Request {
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false); // PBKDF2 can't be interrupted halfway, so don't try.
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private static UserStore instance;
+
+    private final UserDbHelper dbHelper;
+    // One worker thread keeps sign-ups and logins in order and stops a burst of taps from
+    // running lots of expensive hashes at once.
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Something to hash against when the email doesn't exist, so a wrong email takes just as
+    // long as a wrong password and doesn't give away who has an account.
+    private byte[] dummySalt;
+    private byte[] dummyHash;
+
+    private UserStore(Context context) {
+        dbHelper = new UserDbHelper(context);
+    }
+
+    public static synchronized UserStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new UserStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Emails are matched ignoring case and surrounding spaces, so "Test@Example.com " and
+     * "test@example.com" are the same account.
+     */
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Opens the database in the background, so the first login doesn't have to. On first run
+     * this also creates it, which hashes the built-in accounts' passwords: a few hundred
+     * milliseconds of PBKDF2. So it's kept off the splash screen and just queued on our worker,
+     * ahead of any sign-in that comes along afterwards.
+     */
+    public void warmUp() {
+        executor.execute(dbHelper::getReadableDatabase);
+    }
+
+    /**
+     * Checks an email and password.
+     *
+     * @param callback Gets the user if the details are right, or null if they aren't.
+     * @return A handle for cancelling the check.
+     */
+    public Request signIn(String email, String password, Callback<User> callback) {
+        String key = normalizeEmail(email);
+        Request request = new Request();
+        request.future = executor.submit(() -> {
+            if (!request.isCancelled()) {
+                deliver(request, callback, checkPassword(key, password.toCharArray()));
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Creates a new guest account.
+     *
+     * @param callback Gets true if the account was created, or false if that email is taken.
+     * @return A handle for cancelling the sign-up. Once the account has been written it stays,
+     *         but the callback is still skipped.
+     */
+    public Request register(String email, String password, Callback<Boolean> callback) {
+        String key = normalizeEmail(email);
+        Request request = new Request();
+        request.future = executor.submit(() -> {
+            if (!request.isCancelled()) {
+                deliver(request, callback,
+                        UserDbHelper.insertAccount(dbHelper.getWritableDatabase(), key, password, false));
+            }
+        });
+        return request;
+    }
+
+    // --- Everything below runs on the worker thread ---
+
+    private User checkPassword(String email, char[] password) {
+        try (Cursor cursor = dbHelper.getReadableDatabase().query(UserDbHelper.TABLE_USERS,
+                new String[]{UserDbHelper.COLUMN_IS_STAFF, UserDbHelper.COLUMN_SALT,
+                        UserDbHelper.COLUMN_HASH, UserDbHelper.COLUMN_ITERATIONS},
+                UserDbHelper.COLUMN_EMAIL + " = ?", new String[]{email}, null, null, null)) {
+            if (!cursor.moveToFirst()) {
+                burnDummyHash(password);
+                return null;
+            }
+            boolean matches = PasswordHasher.verify(password, cursor.getBlob(1), cursor.getInt(3), cursor.getBlob(2));
+            return matches ? new User(email, cursor.getInt(0) == 1) : null;
+        }
+    }
+
+    private void burnDummyHash(char[] password) {
+        if (dummySalt == null) {
+            dummySalt = PasswordHasher.newSalt();
+            dummyHash = PasswordHasher.hash(new char[0], dummySalt, PasswordHasher.DEFAULT_ITERATIONS);
+        }
+        PasswordHasher.verify(password, dummySalt, PasswordHasher.DEFAULT_ITERATIONS, dummyHash);
+    }
+
+    private <T> void deliver(Request request, Callback<T> callback, T result) {
+        if (callback != null) {
+            mainHandler.post(() -> {
+                // Checked again here, on the main thread, in case it was cancelled in between.
+                if (!request.isCancelled()) {
+                    callback.onResult(result);
+                }
+            });
+        }
+    }
+}
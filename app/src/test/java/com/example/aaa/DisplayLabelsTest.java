@@ -0,0 +1,30 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the pre-built list row labels.
+ */
+public class DisplayLabelsTest {
+
+    @Test
+    public void table_isCachedForCommonNumbers() {
+        assertEquals("Table: 4", DisplayLabels.table(4));
+        assertSame(DisplayLabels.table(4), DisplayLabels.table(4));
+        assertEquals("Table: 250", DisplayLabels.table(250));
+    }
+
+    @Test
+    public void reservationLabels_followChanges() {
+        Reservation reservation = new Reservation("Alice Smith", "2024-06-10", "18:00", 2);
+        assertEquals("2024-06-10 18:00", reservation.getDateTimeLabel());
+        assertEquals("Table: 2", reservation.getTableLabel());
+
+        reservation.setTime("19:45");
+        reservation.setTableNumber(6);
+        assertEquals("2024-06-10 19:45", reservation.getDateTimeLabel());
+        assertEquals("Table: 6", reservation.getTableLabel());
+    }
+}
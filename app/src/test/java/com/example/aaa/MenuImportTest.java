@@ -0,0 +1,61 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for reading and checking rows of an imported menu.
+ */
+public class MenuImportTest {
+
+    @Test
+    public void csv_handlesQuotesCommasAndLineEndings() throws IOException {
+        MenuCsvReader csv = new MenuCsvReader(new StringReader(
+                "name,price\r\n"
+                        + "\"Fish, Chips\",9.50\n"
+                        + "\n"
+                        + "\"The \"\"Big\"\" One\",12\n"
+                        + "\"Two\nLines\",3.25"));
+
+        assertArrayEquals(new String[]{"name", "price"}, csv.readRow());
+        assertArrayEquals(new String[]{"Fish, Chips", "9.50"}, csv.readRow());
+        assertArrayEquals(new String[]{"The \"Big\" One", "12"}, csv.readRow()); // The blank line is skipped.
+        assertArrayEquals(new String[]{"Two\nLines", "3.25"}, csv.readRow());
+        assertNull(csv.readRow());
+    }
+
+    @Test
+    public void csv_keepsEmptyFields() throws IOException {
+        MenuCsvReader csv = new MenuCsvReader(new StringReader("Soup,,\n"));
+        assertArrayEquals(new String[]{"Soup", "", ""}, csv.readRow());
+    }
+
+    @Test
+    public void validRows_becomeMenuItems() {
+        MenuItem item = MenuImportRow.toMenuItem("  Caesar Salad ", "$8", 7);
+        assertNotNull(item);
+        assertEquals("Caesar Salad", item.getName());
+        assertEquals(800, item.getPriceCents());
+        assertEquals(7, item.getImageResId());
+    }
+
+    @Test
+    public void badRows_areRejected() {
+        assertNull(MenuImportRow.toMenuItem("", "5.00", 0));
+        assertNull(MenuImportRow.toMenuItem(null, "5.00", 0));
+        assertNull(MenuImportRow.toMenuItem("Soup", "five", 0));
+        assertNull(MenuImportRow.toMenuItem("Soup", "-1.00", 0));
+        assertNull(MenuImportRow.toMenuItem("Soup", null, 0));
+    }
+
+    @Test
+    public void overflowingPrice_isJustABadRow() {
+        // Used to throw ArithmeticException, which took the whole import down with it.
+        assertNull(MenuImportRow.toMenuItem("Soup", "99999999999999999999", 0));
+        assertNull(MenuImportRow.toMenuItem("Soup", "$92233720368547758.08", 0));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the menu search index.
+ */
+public class MenuSearchIndexTest {
+
+    @Test
+    public void prefixOfAnyWord_matches() {
+        MenuSearchIndex index = new MenuSearchIndex();
+        index.put(1, "Pizza Margherita");
+        index.put(2, "Caesar Salad");
+        index.put(3, "Margarita Cocktail");
+
+        assertEquals(Arrays.asList(1L, 3L), index.search("mar"));
+        assertEquals(Collections.singletonList(2L), index.search("SAL"));
+    }
+
+    @Test
+    public void everyQueryWord_mustMatch() {
+        MenuSearchIndex index = new MenuSearchIndex();
+        index.put(1, "Pizza Margherita");
+        index.put(3, "Margarita Cocktail");
+
+        assertEquals(Collections.singletonList(1L), index.search("marg piz"));
+        assertTrue(index.search("marg salad").isEmpty());
+    }
+
+    @Test
+    public void accentsAreIgnored() {
+        MenuSearchIndex index = new MenuSearchIndex();
+        index.put(7, "Crème Brûlée");
+
+        assertEquals(Collections.singletonList(7L), index.search("creme brul"));
+    }
+
+    @Test
+    public void renamedAndRemovedItems_areReindexed() {
+        MenuSearchIndex index = new MenuSearchIndex();
+        index.put(1, "Beef Burger");
+        index.put(1, "Veggie Burger");
+
+        assertTrue(index.search("beef").isEmpty());
+        assertEquals(Collections.singletonList(1L), index.search("veg"));
+
+        index.remove(1);
+        assertTrue(index.search("burger").isEmpty());
+        assertEquals(0, index.size());
+    }
+}
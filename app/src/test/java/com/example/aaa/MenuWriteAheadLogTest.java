@@ -0,0 +1,140 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the menu's write-ahead log.
+ */
+public class MenuWriteAheadLogTest {
+
+    private static File newDirectory() throws IOException {
+        File dir = Files.createTempDirectory("menu").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static List<MenuItem> reopen(File dir) throws IOException {
+        MenuWriteAheadLog log = new MenuWriteAheadLog(dir, 0);
+        log.open();
+        List<MenuItem> items = log.getItems();
+        log.close();
+        return items;
+    }
+
+    @Test
+    public void edits_areReplayedAfterReopening() throws IOException {
+        File dir = newDirectory();
+        MenuWriteAheadLog log = new MenuWriteAheadLog(dir, 0);
+        log.open();
+        assertTrue(log.isNew());
+
+        MenuItem pizza = new MenuItem("Pizza", 1250, 0);
+        MenuItem salad = new MenuItem("Salad", 800, 0, "file:///salad.webp");
+        log.put(pizza);
+        log.put(salad);
+        log.put(new MenuItem(pizza.getId(), "Big Pizza", 1500, 0, null));
+        log.delete(salad.getId());
+        log.sync();
+        log.close();
+
+        List<MenuItem> items = reopen(dir);
+        assertEquals(1, items.size());
+        assertEquals(pizza.getId(), items.get(0).getId());
+        assertEquals("Big Pizza", items.get(0).getName());
+        assertEquals(1500, items.get(0).getPriceCents());
+    }
+
+    @Test
+    public void tornLastRecord_isDropped() throws IOException {
+        File dir = newDirectory();
+        MenuWriteAheadLog log = new MenuWriteAheadLog(dir, 0);
+        log.open();
+        log.put(new MenuItem("Soup", 600, 0));
+        log.put(new MenuItem("Bread", 300, 0));
+        log.sync();
+        log.close();
+
+        // Pretend we crashed halfway through writing the second record.
+        File logFile = new File(dir, "menu.wal");
+        try (RandomAccessFile raf = new RandomAccessFile(logFile, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        List<MenuItem> items = reopen(dir);
+        assertEquals(1, items.size());
+        assertEquals("Soup", items.get(0).getName());
+
+        // And the log still takes new records after the cut.
+        MenuWriteAheadLog again = new MenuWriteAheadLog(dir, 0);
+        again.open();
+        again.put(new MenuItem("Cake", 550, 0));
+        again.sync();
+        again.close();
+        assertEquals(2, reopen(dir).size());
+    }
+
+    @Test
+    public void compaction_keepsEverythingAndEmptiesTheLog() throws IOException {
+        File dir = newDirectory();
+        MenuWriteAheadLog log = new MenuWriteAheadLog(dir, 0);
+        log.open();
+        MenuItem tea = new MenuItem("Tea", 250, 0);
+        for (int i = 0; i < 300; i++) {
+            log.put(new MenuItem(tea.getId(), "Tea", 250 + i, 0, null));
+        }
+        assertTrue(log.needsCompaction());
+        log.compact();
+        assertFalse(log.needsCompaction());
+        assertEquals(0, new File(dir, "menu.wal").length());
+
+        log.put(new MenuItem("Coffee", 300, 0));
+        log.sync();
+        log.close();
+
+        List<MenuItem> items = reopen(dir);
+        assertEquals(2, items.size());
+        assertEquals(549, items.get(0).getPriceCents());
+        assertEquals("Coffee", items.get(1).getName());
+    }
+
+    @Test
+    public void batches_areReplayedLikeSingleRecords() throws IOException {
+        File dir = newDirectory();
+        MenuWriteAheadLog log = new MenuWriteAheadLog(dir, 0);
+        log.open();
+        List<MenuItem> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            batch.add(new MenuItem("Dish " + i, 100 + i, 0));
+        }
+        log.putAll(batch);
+        log.sync();
+        log.close();
+
+        List<MenuItem> items = reopen(dir);
+        assertEquals(500, items.size());
+        assertEquals("Dish 499", items.get(499).getName());
+        assertEquals(599, items.get(499).getPriceCents());
+    }
+
+    @Test
+    public void newItems_neverReuseLoadedIds() throws IOException {
+        File dir = newDirectory();
+        MenuWriteAheadLog log = new MenuWriteAheadLog(dir, 0);
+        log.open();
+        log.put(new MenuItem(1_000_000, "Old dish", 100, 0, null));
+        log.sync();
+        log.close();
+
+        reopen(dir);
+        assertTrue(new MenuItem("New dish", 100, 0).getId() > 1_000_000);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the whole-cents money helpers.
+ */
+public class MoneyTest {
+
+    @Test
+    public void parse_acceptsTheWaysPeopleTypePrices() {
+        assertEquals(1250, Money.parse("12.50"));
+        assertEquals(1250, Money.parse("12.5"));
+        assertEquals(1200, Money.parse("12"));
+        assertEquals(1200, Money.parse("12."));
+        assertEquals(50, Money.parse(".5"));
+        assertEquals(1475, Money.parse(" $14.75 "));
+        assertEquals(-320, Money.parse("-3.20"));
+    }
+
+    @Test
+    public void parse_rejectsAnythingElse() {
+        String[] bad = {"", "$", ".", "12.345", "1.2.3", "abc", "12,50"};
+        for (String text : bad) {
+            try {
+                Money.parse(text);
+                fail("Should not parse: " + text);
+            } catch (NumberFormatException expected) {
+                // Good.
+            }
+        }
+    }
+
+    @Test
+    public void format_matchesTheOldFormatString() {
+        long[] amounts = {0, 5, 50, 800, 1250, 1475, 9999, 123401};
+        for (long cents : amounts) {
+            assertEquals(String.format(Locale.US, "$%.2f", cents / 100.0), Money.format(cents));
+        }
+        assertEquals("-3.20", Money.toPlainString(-320));
+        assertEquals("12.50", Money.toPlainString(Money.parse(Money.toPlainString(1250))));
+    }
+
+    @Test
+    public void totals_areExact() {
+        // Ten thousand dimes is exactly $1000.00, which adding up 0.10 as doubles doesn't give.
+        List<MenuItem> items = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            items.add(new MenuItem("Mint", 10, 0));
+        }
+        assertEquals(100_000, Money.total(items));
+        assertEquals(3750, Money.times(1250, 3));
+    }
+
+    @Test
+    public void percentOf_roundsHalfAwayFromZero() {
+        assertEquals(103, Money.percentOf(1250, 825));  // 8.25% of $12.50 is 103.125 cents.
+        assertEquals(1, Money.percentOf(10, 500));      // 5% of 10 cents is exactly half a cent.
+        assertEquals(-1, Money.percentOf(-10, 500));
+    }
+
+    @Test
+    public void parse_hugePrices_areAFormatError() {
+        // Too big for a long in cents, either in the digits or once the cents are added on.
+        String[] huge = {"99999999999999999999", "92233720368547758.08", "92233720368547759", "-99999999999999999999"};
+        for (String text : huge) {
+            try {
+                Money.parse(text);
+                fail("Should not parse: " + text);
+            } catch (NumberFormatException expected) {
+                assertEquals("Price too large", expected.getMessage());
+            }
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void overflow_isAnError() {
+        Money.add(Long.MAX_VALUE, 1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for password hashing. We use a low round count so the tests stay quick.
+ */
+public class PasswordHasherTest {
+
+    private static final int FAST_ITERATIONS = 1_000;
+
+    @Test
+    public void rightPassword_verifies_wrongOneDoesNot() {
+        byte[] salt = PasswordHasher.newSalt();
+        byte[] hash = PasswordHasher.hash("admin123".toCharArray(), salt, FAST_ITERATIONS);
+
+        assertTrue(PasswordHasher.verify("admin123".toCharArray(), salt, FAST_ITERATIONS, hash));
+        assertFalse(PasswordHasher.verify("admin124".toCharArray(), salt, FAST_ITERATIONS, hash));
+    }
+
+    @Test
+    public void samePassword_hashesDifferentlyWithDifferentSalts() {
+        char[] password = "password123".toCharArray();
+        byte[] first = PasswordHasher.hash(password, PasswordHasher.newSalt(), FAST_ITERATIONS);
+        byte[] second = PasswordHasher.hash(password, PasswordHasher.newSalt(), FAST_ITERATIONS);
+
+        assertEquals(32, first.length);
+        assertFalse(Arrays.equals(first, second));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the single-pass password scorer.
+ */
+public class PasswordStrengthScorerTest {
+
+    /**
+     * The regex version the sign-up screen used to have, so we can check we score the same.
+     */
+    private static int regexScore(String password) {
+        int score = 0;
+        if (password.length() >= 8) score += 25;
+        if (password.matches(".*[0-9].*")) score += 25;
+        if (password.matches(".*[A-Z].*")) score += 25;
+        if (password.matches(".*[@#$%^&+=].*")) score += 25;
+        return score;
+    }
+
+    @Test
+    public void score_matchesTheOldRegexes() {
+        PasswordStrengthScorer scorer = new PasswordStrengthScorer();
+        String[] passwords = {"", "abc", "abcdefgh", "abc1", "ABC", "a@b", "Abcdefg1", "Abcdef1#", "!!!!!!!!", "ÄÖÜ12345"};
+        for (String password : passwords) {
+            scorer.analyze(password);
+            assertEquals(password, regexScore(password), scorer.getScore());
+        }
+    }
+
+    @Test
+    public void firstFailingRule_isReported() {
+        PasswordStrengthScorer scorer = new PasswordStrengthScorer()
+                .addRule(PasswordRule.minimumLength(6, "Too short"))
+                .addRule((password, stats) -> stats.digits == 0 ? "Needs a digit" : null);
+
+        scorer.analyze("abc");
+        assertEquals("Too short", scorer.getProblem());
+        assertFalse(scorer.isAcceptable());
+
+        scorer.analyze("abcdef");
+        assertEquals("Needs a digit", scorer.getProblem());
+
+        scorer.analyze("abcde1");
+        assertNull(scorer.getProblem());
+        assertTrue(scorer.isAcceptable());
+    }
+
+    @Test
+    public void stats_countEachKindOfCharacter() {
+        PasswordStrengthScorer scorer = new PasswordStrengthScorer();
+        scorer.analyze(new StringBuilder("aB3#x9"));
+
+        PasswordStats stats = scorer.getStats();
+        assertEquals(6, stats.length);
+        assertEquals(2, stats.digits);
+        assertEquals(1, stats.uppercase);
+        assertEquals(2, stats.lowercase);
+        assertEquals(1, stats.special);
+    }
+
+    @Test
+    public void breachedRule_onlyFailsTheFlaggedPassword() {
+        BreachedPasswordRule rule = new BreachedPasswordRule();
+        PasswordStats stats = new PasswordStats();
+        assertNull(rule.check("password1", stats));
+
+        rule.markBreached("password1");
+        assertNotNull(rule.check(new StringBuilder("password1"), stats));
+        assertNull(rule.check("password12", stats));
+    }
+}
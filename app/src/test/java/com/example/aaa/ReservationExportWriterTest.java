@@ -0,0 +1,98 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the CSV and iCalendar export writer.
+ */
+public class ReservationExportWriterTest {
+
+    private static final int SLOT = ReservationTime.toEpochMinute("2025-03-14", "19:30");
+
+    private static String export(ReservationExportWriter.Format format, Object[]... rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReservationExportWriter writer = new ReservationExportWriter(Channels.newChannel(out), format, 0);
+        for (Object[] row : rows) {
+            writer.writeReservation((Long) row[0], (String) row[1], (Integer) row[2], (Integer) row[3]);
+        }
+        writer.finish();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void csv_hasAHeaderAndQuotesWhenNeeded() throws IOException {
+        String csv = export(ReservationExportWriter.Format.CSV,
+                new Object[]{1L, "Ann Smith", SLOT, 4},
+                new Object[]{2L, "Smith, \"Bob\"", SLOT + 30, 12},
+                new Object[]{3L, "=SUM(A1)", SLOT, 1});
+
+        assertEquals("id,customer_name,date,time,table\r\n"
+                + "1,Ann Smith,2025-03-14,19:30,4\r\n"
+                + "2,\"Smith, \"\"Bob\"\"\",2025-03-14,20:00,12\r\n"
+                + "3,\"'=SUM(A1)\",2025-03-14,19:30,1\r\n", csv);
+    }
+
+    @Test
+    public void csv_defusesFormulasHiddenBehindATabOrReturn() throws IOException {
+        String csv = export(ReservationExportWriter.Format.CSV,
+                new Object[]{1L, "\t=cmd", SLOT, 2},
+                new Object[]{2L, "\r=cmd", SLOT, 3});
+
+        assertEquals("id,customer_name,date,time,table\r\n"
+                + "1,\"'\t=cmd\",2025-03-14,19:30,2\r\n"
+                + "2,\"'\r=cmd\",2025-03-14,19:30,3\r\n", csv);
+    }
+
+    @Test
+    public void ics_writesOneEventPerReservation() throws IOException {
+        String ics = export(ReservationExportWriter.Format.ICS, new Object[]{7L, "Ann; Bob", SLOT, 4});
+
+        assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"));
+        assertTrue(ics.contains("UID:reservation-7@com.example.aaa\r\n"));
+        assertTrue(ics.contains("DTSTAMP:19700101T000000Z\r\n"));
+        assertTrue(ics.contains("DTSTART:20250314T193000\r\n"));
+        assertTrue(ics.contains("DTEND:20250314T210000\r\n")); // 90 minutes later.
+        assertTrue(ics.contains("SUMMARY:Ann\\; Bob (Table 4)\r\n"));
+        assertTrue(ics.endsWith("END:VEVENT\r\nEND:VCALENDAR\r\n"));
+    }
+
+    @Test
+    public void ics_foldsLongLines() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            name.append("Ünïcødé ");
+        }
+        String ics = export(ReservationExportWriter.Format.ICS, new Object[]{1L, name.toString(), SLOT, 1});
+        for (String line : ics.split("\r\n")) {
+            assertTrue(line, line.getBytes(StandardCharsets.UTF_8).length <= 75);
+        }
+        // Unfolding gives the original back.
+        assertTrue(ics.replace("\r\n ", "").contains("SUMMARY:" + name + " (Table 1)"));
+    }
+
+    @Test
+    public void emptyExport_isStillAValidFile() throws IOException {
+        assertEquals("id,customer_name,date,time,table\r\n", export(ReservationExportWriter.Format.CSV));
+        assertEquals("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//AAA Restaurant//Reservations//EN\r\n"
+                + "CALSCALE:GREGORIAN\r\nEND:VCALENDAR\r\n", export(ReservationExportWriter.Format.ICS));
+    }
+
+    @Test
+    public void bigExports_goThroughTheBufferIntact() throws IOException {
+        Object[][] rows = new Object[20_000][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{(long) i, "Guest " + i, SLOT + i, i % 20};
+        }
+        String csv = export(ReservationExportWriter.Format.CSV, rows);
+        String[] lines = csv.split("\r\n");
+        assertEquals(20_001, lines.length);
+        assertTrue(lines[20_000].startsWith("19999,Guest 19999,"));
+    }
+}
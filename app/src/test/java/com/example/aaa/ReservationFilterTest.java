@@ -0,0 +1,50 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for building up reservation list filters.
+ */
+public class ReservationFilterTest {
+
+    @Test
+    public void all_hasNoNameOrTimeRange() {
+        assertEquals(Collections.emptyList(), ReservationFilter.ALL.getNameWords());
+        assertFalse(ReservationFilter.ALL.hasTimeRange());
+    }
+
+    @Test
+    public void withName_splitsAndNormalisesWords() {
+        ReservationFilter filter = ReservationFilter.ALL.withName("  Zoë  SMITH ");
+
+        assertEquals(Arrays.asList("zoe", "smith"), filter.getNameWords());
+    }
+
+    @Test
+    public void onDay_coversExactlyThatDay_andKeepsTheName() {
+        ReservationFilter filter = ReservationFilter.ALL.withName("smith").onDay("2024-06-10");
+
+        assertTrue(filter.hasTimeRange());
+        assertEquals(ReservationTime.toEpochMinute("2024-06-10", "00:00"), filter.getFromSlot());
+        assertEquals(ReservationTime.toEpochMinute("2024-06-11", "00:00"), filter.getToSlot());
+        assertEquals(Collections.singletonList("smith"), filter.getNameWords());
+
+        ReservationFilter everyDay = filter.anyDay();
+        assertFalse(everyDay.hasTimeRange());
+        assertEquals(Collections.singletonList("smith"), everyDay.getNameWords());
+    }
+
+    @Test
+    public void between_usesTheGivenSlots() {
+        ReservationFilter filter = ReservationFilter.ALL.between(1000, 5000);
+
+        assertTrue(filter.hasTimeRange());
+        assertEquals(1000, filter.getFromSlot());
+        assertEquals(5000, filter.getToSlot());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the packed reservation start times.
+ */
+public class ReservationTimeTest {
+
+    @Test
+    public void packedSlot_roundTripsDateAndTime() {
+        int slot = ReservationTime.toEpochMinute("2024-10-28", "19:30");
+
+        assertEquals("2024-10-28", ReservationTime.formatDate(slot));
+        assertEquals("19:30", ReservationTime.formatTime(slot));
+        assertEquals(ReservationTime.startOfDay("2024-10-28"), ReservationTime.startOfDay(slot));
+    }
+
+    @Test
+    public void gettersAreViewsOverTheSlot() {
+        Reservation reservation = new Reservation("Alice Smith", "2024-06-10", "18:00", 2);
+        reservation.setTime("21:05");
+
+        assertEquals("2024-06-10", reservation.getDate());
+        assertEquals("21:05", reservation.getTime());
+    }
+
+    @Test
+    public void bySlot_sortsChronologicallyAcrossDays() {
+        Reservation late = new Reservation("A", "2024-06-10", "23:30", 1);
+        Reservation nextDay = new Reservation("B", "2024-06-11", "09:00", 1);
+        Reservation early = new Reservation("C", "2024-06-10", "08:15", 1);
+
+        List<Reservation> sorted = new ArrayList<>(Arrays.asList(nextDay, late, early));
+        sorted.sort(Reservation.BY_SLOT);
+
+        assertEquals(Arrays.asList(early, late, nextDay), sorted);
+    }
+}
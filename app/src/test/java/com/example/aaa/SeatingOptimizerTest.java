@@ -0,0 +1,67 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the automatic table suggestions.
+ */
+public class SeatingOptimizerTest {
+
+    private static final int SEVEN_THIRTY = ReservationTime.toEpochMinute("2024-06-10", "19:30");
+
+    // Tables 1-2 seat two, 3-4 seat four, 5 seats eight.
+    private static final int[] CAPACITIES = {2, 2, 4, 4, 8};
+
+    @Test
+    public void picksTheSmallestTableThePartyFits() {
+        SeatingOptimizer optimizer = new SeatingOptimizer(CAPACITIES, new TableConflictEngine());
+
+        assertEquals(1, optimizer.suggestTable(2, SEVEN_THIRTY, 0));
+        assertEquals(3, optimizer.suggestTable(3, SEVEN_THIRTY, 0));
+        assertEquals(5, optimizer.suggestTable(7, SEVEN_THIRTY, 0));
+        assertEquals(0, optimizer.suggestTable(9, SEVEN_THIRTY, 0));
+    }
+
+    @Test
+    public void movesUpASizeWhenTheSmallTablesAreTaken() {
+        TableConflictEngine engine = new TableConflictEngine();
+        engine.add(1, 1, SEVEN_THIRTY);
+        engine.add(2, 2, SEVEN_THIRTY + 30);
+        SeatingOptimizer optimizer = new SeatingOptimizer(CAPACITIES, engine);
+
+        assertEquals(3, optimizer.suggestTable(2, SEVEN_THIRTY, 0));
+        assertEquals(1, optimizer.suggestTable(2, SEVEN_THIRTY, 1)); // Moving booking 1 frees its table.
+    }
+
+    @Test
+    public void prefersTheTableItFitsMostSnuglyAround() {
+        TableConflictEngine engine = new TableConflictEngine();
+        engine.add(1, 4, SEVEN_THIRTY - 90); // Table 4 is busy right up to 19:30...
+        engine.add(2, 4, SEVEN_THIRTY + 90); // ...and again straight after.
+        SeatingOptimizer optimizer = new SeatingOptimizer(CAPACITIES, engine);
+
+        // Table 3 is free all evening, so squeezing them into table 4's gap wastes nothing.
+        assertEquals(4, optimizer.suggestTable(4, SEVEN_THIRTY, 0));
+        assertEquals(0, engine.idleMinutesAround(4, SEVEN_THIRTY, 0));
+    }
+
+    @Test
+    public void idleMinutes_runToTheEdgesOfTheDay() {
+        TableConflictEngine engine = new TableConflictEngine();
+        int dayStart = ReservationTime.startOfDay(SEVEN_THIRTY);
+
+        assertEquals(ReservationTime.MINUTES_PER_DAY - 90, engine.idleMinutesAround(1, SEVEN_THIRTY, 0));
+        engine.add(1, 1, SEVEN_THIRTY + 120);
+        assertEquals((SEVEN_THIRTY - dayStart) + 30, engine.idleMinutesAround(1, SEVEN_THIRTY, 0));
+    }
+
+    @Test
+    public void capacityOf_unknownTables_isZero() {
+        SeatingOptimizer optimizer = new SeatingOptimizer(CAPACITIES, new TableConflictEngine());
+        assertEquals(8, optimizer.capacityOf(5));
+        assertEquals(0, optimizer.capacityOf(0));
+        assertEquals(0, optimizer.capacityOf(6));
+    }
+}
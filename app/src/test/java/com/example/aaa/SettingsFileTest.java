@@ -0,0 +1,69 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the settings file format and typed keys.
+ */
+public class SettingsFileTest {
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("settings", ".bin");
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void everyType_survivesARoundTrip() throws IOException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("remember_me", true);
+        values.put("remembered_email", "test@example.com");
+        values.put("page_size", 50);
+        values.put("last_sync", 1_700_000_000_000L);
+
+        File file = tempFile();
+        SettingsFile.write(file, values);
+        assertEquals(values, SettingsFile.read(file));
+    }
+
+    @Test
+    public void missingFile_readsAsNull() throws IOException {
+        File file = tempFile();
+        assertTrue(file.delete());
+        assertNull(SettingsFile.read(file));
+    }
+
+    @Test
+    public void garbage_isRejected() throws IOException {
+        File file = tempFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        }
+        try {
+            SettingsFile.read(file);
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            // Good.
+        }
+    }
+
+    @Test
+    public void keys_fallBackToTheirDefault() {
+        SettingsKey<Boolean> remember = SettingsKey.booleanKey("remember_me", false);
+        SettingsKey<String> email = SettingsKey.stringKey("remembered_email", "");
+
+        assertEquals(Boolean.FALSE, remember.valueOf(null));
+        assertEquals(Boolean.TRUE, remember.valueOf(true));
+        assertEquals("", email.valueOf(null));
+        // A value of the wrong type (say, after a key changed type) is ignored.
+        assertEquals("", email.valueOf(42));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the table double-booking checks.
+ */
+public class TableConflictEngineTest {
+
+    private static final int SEVEN_THIRTY = ReservationTime.toEpochMinute("2024-06-10", "19:30");
+
+    @Test
+    public void overlappingWindow_isNotFree() {
+        TableConflictEngine engine = new TableConflictEngine();
+        engine.add(1, 4, SEVEN_THIRTY);
+
+        assertFalse(engine.isFree(4, SEVEN_THIRTY, 0));
+        assertFalse(engine.isFree(4, SEVEN_THIRTY + 89, 0));
+        assertFalse(engine.isFree(4, SEVEN_THIRTY - 89, 0));
+    }
+
+    @Test
+    public void backToBackWindows_andOtherTables_areFree() {
+        TableConflictEngine engine = new TableConflictEngine();
+        engine.add(1, 4, SEVEN_THIRTY);
+
+        assertTrue(engine.isFree(4, SEVEN_THIRTY + 90, 0));
+        assertTrue(engine.isFree(4, SEVEN_THIRTY - 90, 0));
+        assertTrue(engine.isFree(5, SEVEN_THIRTY, 0));
+    }
+
+    @Test
+    public void editedReservation_doesNotClashWithItself() {
+        TableConflictEngine engine = new TableConflictEngine();
+        engine.add(7, 2, SEVEN_THIRTY);
+
+        assertTrue(engine.isFree(2, SEVEN_THIRTY + 30, 7));
+    }
+
+    @Test
+    public void nearestFreeSlots_areClosestFirst() {
+        TableConflictEngine engine = new TableConflictEngine();
+        engine.add(1, 4, SEVEN_THIRTY);
+
+        assertEquals(Arrays.asList(SEVEN_THIRTY - 90, SEVEN_THIRTY + 90),
+                engine.nearestFreeSlots(4, SEVEN_THIRTY, 0, 2));
+    }
+}
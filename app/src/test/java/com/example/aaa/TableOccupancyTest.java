@@ -0,0 +1,77 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the per-table slot bitmaps behind the reservations grid.
+ */
+public class TableOccupancyTest {
+
+    private static final int DAY = ReservationTime.startOfDay("2024-06-10");
+    private static final int SEVEN_THIRTY = ReservationTime.toEpochMinute("2024-06-10", "19:30");
+
+    @Test
+    public void slotMask_coversEveryTouchedSlot_andClipsToTheGrid() {
+        assertEquals(0b1L, TableOccupancy.slotMask(0, 15));
+        assertEquals(0b11L, TableOccupancy.slotMask(0, 16));
+        assertEquals(0b110L, TableOccupancy.slotMask(20, 15));
+        assertEquals(0b1L, TableOccupancy.slotMask(-80, 90)); // Seated before opening.
+        assertEquals(1L << 55, TableOccupancy.slotMask(55 * 15, 90)); // Runs past closing.
+        assertEquals(0L, TableOccupancy.slotMask(-90, 90));
+        assertEquals(0L, TableOccupancy.slotMask(56 * 15, 90));
+    }
+
+    @Test
+    public void put_marksTheSeatingOnTheRightTable() {
+        TableOccupancy occupancy = TableOccupancy.forDay(DAY, 10);
+        occupancy.put(1, 4, SEVEN_THIRTY);
+
+        int row = 3; // Tables 1..10 are rows 0..9.
+        assertEquals(4, occupancy.getTableNumber(row));
+        int firstSlot = (SEVEN_THIRTY - occupancy.getWindowStart()) / TableOccupancy.SLOT_MINUTES;
+        assertEquals(0b111111L << firstSlot, occupancy.getOccupiedSlots(row));
+        assertTrue(occupancy.isOccupied(row, firstSlot + 5));
+        assertFalse(occupancy.isOccupied(row, firstSlot + 6));
+        assertEquals(0L, occupancy.getOccupiedSlots(2));
+    }
+
+    @Test
+    public void movingAndRemoving_onlyDirtiesTheTablesInvolved() {
+        TableOccupancy occupancy = TableOccupancy.forDay(DAY, 10);
+        occupancy.put(1, 4, SEVEN_THIRTY);
+        occupancy.put(2, 4, SEVEN_THIRTY + 90);
+        occupancy.takeDirtyRows();
+
+        occupancy.put(1, 6, SEVEN_THIRTY); // Moved from table 4 to table 6.
+        BitSet dirty = occupancy.takeDirtyRows();
+        assertEquals(2, dirty.cardinality());
+        assertTrue(dirty.get(3));
+        assertTrue(dirty.get(5));
+        assertTrue(occupancy.getOccupiedSlots(3) != 0); // Booking 2 is still there.
+
+        occupancy.remove(1);
+        dirty = occupancy.takeDirtyRows();
+        assertEquals(1, dirty.cardinality());
+        assertEquals(0L, occupancy.getOccupiedSlots(5));
+
+        occupancy.remove(99); // Never heard of it.
+        assertTrue(occupancy.takeDirtyRows().isEmpty());
+    }
+
+    @Test
+    public void aBookingForAnUnknownTable_addsARowInOrder() {
+        TableOccupancy occupancy = TableOccupancy.forDay(DAY, 3);
+        occupancy.put(1, 12, SEVEN_THIRTY);
+        occupancy.put(2, 7, SEVEN_THIRTY);
+
+        assertNull(occupancy.takeDirtyRows()); // Rows moved, so redraw the lot.
+        assertEquals(5, occupancy.getRowCount());
+        assertEquals(7, occupancy.getTableNumber(3));
+        assertEquals(12, occupancy.getTableNumber(4));
+        assertNotNull(occupancy.takeDirtyRows());
+    }
+}
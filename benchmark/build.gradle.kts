@@ -0,0 +1,55 @@
+plugins {
+    alias(libs.plugins.android.test)
+    alias(libs.plugins.baselineprofile)
+}
+
+// Macrobenchmarks for the app: cold/warm startup, screen transitions and list scrolling.
+// It also generates the app's Baseline Profile. Run it with:
+//   ./gradlew :benchmark:connectedBenchmarkReleaseAndroidTest   (on a running emulator/device)
+//   ./gradlew :app:generateBaselineProfile                      (on the managed emulator below)
+android {
+    namespace = "com.example.aaa.benchmark"
+    compileSdk {
+        version = release(36)
+    }
+
+    defaultConfig {
+        minSdk = 33
+        targetSdk = 36
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        // Let the benchmarks run on emulators too. Their numbers are only good for spotting
+        // trends, so compare like with like.
+        testInstrumentationRunnerArguments["androidx.benchmark.suppressErrors"] = "EMULATOR"
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_11
+        targetCompatibility = JavaVersion.VERSION_11
+    }
+
+    targetProjectPath = ":app"
+
+    // A plain AOSP emulator image (no Play services) that Gradle can download and start by
+    // itself, so profiles can be generated on any machine or CI box. The system image is
+    // downloaded the first time it's used, so that run needs network access (or an SDK where
+    // the image is already installed).
+    testOptions.managedDevices.localDevices {
+        create("pixel6Api34") {
+            device = "Pixel 6"
+            apiLevel = 34
+            systemImageSource = "aosp"
+        }
+    }
+}
+
+baselineProfile {
+    managedDevices += "pixel6Api34"
+    useConnectedDevices = false
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.uiautomator)
+    implementation(libs.benchmark.macro.junit4)
+}
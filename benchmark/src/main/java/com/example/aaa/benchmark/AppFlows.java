@@ -0,0 +1,89 @@
+package com.example.aaa.benchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+/**
+ * The user journeys our benchmarks and profile generator share: getting to the login card,
+ * logging in as staff, and moving between the staff screens. They drive the real UI through
+ * UiAutomator, so they only rely on view IDs from the app's layouts.
+ */
+final class AppFlows {
+
+    static final String PACKAGE_NAME = "com.example.aaa";
+
+    // Generous, since an emulator can be slow and the first login has to hash a password.
+    private static final long TIMEOUT_MS = 10_000;
+
+    private AppFlows() {
+        // Just a holder for the static methods below.
+    }
+
+    /**
+     * Waits for the login card, i.e. for the splash screen to finish.
+     */
+    static void waitForLoginCard(UiDevice device) {
+        waitFor(device, "login_card");
+    }
+
+    /**
+     * Launches the app and logs in with the seeded staff account, ending on the dashboard.
+     */
+    static void startAndLogInAsStaff(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        scope.startActivityAndWait();
+        waitForLoginCard(device);
+
+        find(device, "account_input").setText("admin");
+        find(device, "password_input").setText("admin123");
+        find(device, "login_button").click();
+        waitFor(device, "dashboard_title");
+    }
+
+    /**
+     * Taps "Manage Menu" on the dashboard and waits for the menu list.
+     */
+    static void openManageMenu(UiDevice device) {
+        find(device, "manage_menu_button").click();
+        waitFor(device, "menu_recycler_view");
+    }
+
+    /**
+     * Taps "Manage Reservations" on the dashboard and waits for the reservations list.
+     */
+    static void openManageReservations(UiDevice device) {
+        find(device, "manage_reservations_button").click();
+        waitFor(device, "reservations_recycler_view");
+    }
+
+    /**
+     * Flings a list down and back up again.
+     */
+    static void flingList(UiDevice device, String listId) {
+        UiObject2 list = find(device, listId);
+        // Keep the gesture away from the screen edges so it isn't taken as a system swipe.
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        list.fling(Direction.DOWN);
+        device.waitForIdle();
+        list.fling(Direction.UP);
+        device.waitForIdle();
+    }
+
+    private static UiObject2 find(UiDevice device, String id) {
+        UiObject2 view = device.wait(Until.findObject(By.res(PACKAGE_NAME, id)), TIMEOUT_MS);
+        if (view == null) {
+            throw new IllegalStateException("Couldn't find view " + id);
+        }
+        return view;
+    }
+
+    private static void waitFor(UiDevice device, String id) {
+        if (!device.wait(Until.hasObject(By.res(PACKAGE_NAME, id)), TIMEOUT_MS)) {
+            throw new IllegalStateException("Timed out waiting for " + id);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.aaa.benchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Generates the Baseline Profile for the app: the list of classes and methods that should be
+ * compiled ahead of time, so startup and the staff screens don't run in the interpreter.
+ *
+ * Run it with ./gradlew :app:generateBaselineProfile. It walks through the same journeys we
+ * benchmark: startup, logging in, and scrolling both lists.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(AppFlows.PACKAGE_NAME, scope -> {
+            scope.pressHome();
+            AppFlows.startAndLogInAsStaff(scope);
+
+            AppFlows.openManageMenu(scope.getDevice());
+            AppFlows.flingList(scope.getDevice(), "menu_recycler_view");
+            scope.getDevice().pressBack();
+
+            AppFlows.openManageReservations(scope.getDevice());
+            AppFlows.flingList(scope.getDevice(), "reservations_recycler_view");
+            return Unit.INSTANCE;
+        });
+    }
+}
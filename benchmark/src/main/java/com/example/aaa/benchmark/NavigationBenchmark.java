@@ -0,0 +1,47 @@
+package com.example.aaa.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * How smooth the jump from the staff dashboard to the Manage Menu screen is. Logging in
+ * happens in the setup step, so only the transition itself is measured.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NavigationBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void dashboardToManageMenu() {
+        benchmarkRule.measureRepeated(
+                AppFlows.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable),
+                null, // We start the app ourselves in the setup step.
+                ITERATIONS,
+                scope -> {
+                    scope.killProcess();
+                    AppFlows.startAndLogInAsStaff(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    AppFlows.openManageMenu(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+}
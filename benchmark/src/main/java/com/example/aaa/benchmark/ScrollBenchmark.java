@@ -0,0 +1,79 @@
+package com.example.aaa.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Frame timings while flinging the reservations and menu lists. RecyclerView wraps every bind
+ * in an "RV OnBindView" trace section, so we also report how long our onBindViewHolder calls
+ * take. That's where extra formatting or allocations would show up first.
+ *
+ * The numbers mean the most with a good number of rows, e.g. after importing a large menu
+ * or lots of bookings. A fresh install only has a few sample rows.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void flingReservations() {
+        benchmarkRule.measureRepeated(
+                AppFlows.PACKAGE_NAME,
+                scrollMetrics(),
+                new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable),
+                null,
+                ITERATIONS,
+                scope -> {
+                    scope.killProcess();
+                    AppFlows.startAndLogInAsStaff(scope);
+                    AppFlows.openManageReservations(scope.getDevice());
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    AppFlows.flingList(scope.getDevice(), "reservations_recycler_view");
+                    return Unit.INSTANCE;
+                });
+    }
+
+    @Test
+    public void flingMenu() {
+        benchmarkRule.measureRepeated(
+                AppFlows.PACKAGE_NAME,
+                scrollMetrics(),
+                new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable),
+                null,
+                ITERATIONS,
+                scope -> {
+                    scope.killProcess();
+                    AppFlows.startAndLogInAsStaff(scope);
+                    AppFlows.openManageMenu(scope.getDevice());
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    AppFlows.flingList(scope.getDevice(), "menu_recycler_view");
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private static List<Metric> scrollMetrics() {
+        return Arrays.asList(new FrameTimingMetric(), new TraceSectionMetric("RV OnBindView"));
+    }
+}
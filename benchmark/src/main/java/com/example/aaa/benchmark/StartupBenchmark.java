@@ -0,0 +1,73 @@
+package com.example.aaa.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * How long it takes from tapping the launcher icon to seeing the login card, both from a dead
+ * process (cold) and from one that's still in memory (warm).
+ *
+ * Each is measured with and without the Baseline Profile, so we can see what the profile buys
+ * us. The profile isn't checked in until someone has run :app:generateBaselineProfile; before
+ * then the "with" runs just use partial compilation without one, instead of failing, so the
+ * two only differ once a profile exists. MainActivity calls reportFullyDrawn() once the login card is showing, so the
+ * "timeToFullDisplay" result is the number users actually feel.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartupWithoutProfile() {
+        measureStartup(StartupMode.COLD, new CompilationMode.None());
+    }
+
+    @Test
+    public void coldStartupWithBaselineProfile() {
+        measureStartup(StartupMode.COLD, new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable));
+    }
+
+    @Test
+    public void warmStartupWithoutProfile() {
+        measureStartup(StartupMode.WARM, new CompilationMode.None());
+    }
+
+    @Test
+    public void warmStartupWithBaselineProfile() {
+        measureStartup(StartupMode.WARM, new CompilationMode.Partial(BaselineProfileMode.UseIfAvailable));
+    }
+
+    private void measureStartup(StartupMode startupMode, CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                AppFlows.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                startupMode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    AppFlows.waitForLoginCard(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,110 @@
+import java.io.IOException
+import java.net.URI
+import java.security.MessageDigest
+
+plugins {
+    `java-library`
+}
+
+// The breached-password bloom filter: the format and reader the app uses, plus the tool and
+// task that build the filter the app ships. The filter itself is committed, in
+// assets/breached_passwords.bloom, so building the app never needs the network and always
+// ships the same bytes.
+//
+// To rebuild it from the pinned list in gradle.properties (commit and SHA-256 checked):
+//   ./gradlew :passwordfilter:updateBreachedPasswordFilter
+// or from a list you already have, e.g. the Have I Been Pwned SHA-1 download:
+//   ./gradlew :passwordfilter:updateBreachedPasswordFilter -PbreachedPasswordList=/path/to/list.txt
+// Then commit the new filter (and gradle.properties, if the pin changed).
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// The command-line builder gets its own source set, so it's never part of the library (and
+// never ends up in the APK).
+val tool: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
+
+val falsePositiveRate = "0.001" // One in a thousand strong passwords gets a needless warning.
+
+// The pin lives in this module's gradle.properties, which only project properties can see.
+fun pinned(name: String) = providers.provider { findProperty(name)?.toString().orEmpty() }
+val listRepo = pinned("breachedPasswordListRepo")
+val listPath = pinned("breachedPasswordListPath")
+val listCommit = pinned("breachedPasswordListCommit")
+val listSha256 = pinned("breachedPasswordListSha256")
+val customList = providers.gradleProperty("breachedPasswordList")
+val downloadedList = layout.buildDirectory.file("breached-passwords/passwords.txt")
+val committedFilter = layout.projectDirectory.file("assets/breached_passwords.bloom")
+
+fun sha256Of(file: File): String {
+    val digest = MessageDigest.getInstance("SHA-256")
+    file.inputStream().use { input ->
+        val buffer = ByteArray(64 * 1024)
+        while (true) {
+            val read = input.read(buffer)
+            if (read < 0) break
+            digest.update(buffer, 0, read)
+        }
+    }
+    return digest.digest().joinToString("") { "%02x".format(it) }
+}
+
+// Only ever run by hand (through updateBreachedPasswordFilter), never as part of a build.
+val downloadBreachedPasswordList by tasks.registering {
+    description = "Downloads the pinned breached-password list and checks its SHA-256."
+    onlyIf { !customList.isPresent }
+    inputs.property("commit", listCommit)
+    inputs.property("sha256", listSha256)
+    outputs.file(downloadedList)
+    doLast {
+        val commit = listCommit.get()
+        val expected = listSha256.get().lowercase()
+        if (!commit.matches(Regex("[0-9a-f]{40}")) || !expected.matches(Regex("[0-9a-f]{64}"))) {
+            throw GradleException(
+                "Set breachedPasswordListCommit (a full commit hash) and breachedPasswordListSha256 " +
+                    "in passwordfilter/gradle.properties, or pass -PbreachedPasswordList=<file>."
+            )
+        }
+        val url = "${listRepo.get()}/$commit/${listPath.get()}"
+        val target = downloadedList.get().asFile
+        target.parentFile.mkdirs()
+        try {
+            URI(url).toURL().openStream().use { input ->
+                target.outputStream().use { input.copyTo(it) }
+            }
+        } catch (e: IOException) {
+            target.delete()
+            throw GradleException("Couldn't download the breached-password list from $url", e)
+        }
+        val actual = sha256Of(target)
+        if (actual != expected) {
+            target.delete()
+            throw GradleException("The list from $url has SHA-256 $actual, but $expected is pinned.")
+        }
+    }
+}
+
+val updateBreachedPasswordFilter by tasks.registering(JavaExec::class) {
+    description = "Rebuilds the committed breached-password bloom filter the app ships."
+    dependsOn(downloadBreachedPasswordList)
+    val list = customList.map { rootProject.file(it) }.orElse(downloadedList.map { it.asFile })
+    classpath = tool.runtimeClasspath
+    mainClass.set("com.example.aaa.tool.BuildBloomFilter")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(list.get().absolutePath, committedFilter.asFile.absolutePath, falsePositiveRate)
+    })
+    doFirst {
+        // So a local list can be pinned too, once it's the one we want to ship.
+        logger.lifecycle("Building the filter from ${list.get()} (SHA-256 ${sha256Of(list.get())})")
+    }
+    outputs.upToDateWhen { false } // It writes to a committed file, so always do what's asked.
+}
@@ -0,0 +1,191 @@
+package com.example.aaa;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A compact "have we seen this password before?" set, read straight out of a memory-mapped
+ * file. It can say "definitely not in the list" or "probably in the list" (with a small,
+ * chosen chance of a false alarm), and never misses a password that really is in the list.
+ * Two million passwords fit in about 3.6 MB at a one-in-a-thousand false alarm rate.
+ *
+ * Every entry is stored by its SHA-1, so a filter can be built straight from a SHA-1 hash list
+ * (like the big public breach dumps) without ever having the plain passwords.
+ *
+ * File layout, all big-endian:
+ * <pre>
+ *   4 bytes  magic "PWBF"
+ *   4 bytes  format version (1)
+ *   8 bytes  number of bits
+ *   4 bytes  number of hash functions
+ *   ...      the bits, packed 8 to a byte
+ * </pre>
+ *
+ * This lives in its own plain Java module so the app and the build can share it. The app only
+ * ever reads filters; the one it ships is committed, and rebuilt by the
+ * updateBreachedPasswordFilter task (see passwordfilter/build.gradle.kts) using the
+ * command-line tool in the "tool" source set.
+ */
+public final class BloomFilter {
+
+    private static final int MAGIC = 0x50574246; // "PWBF"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+
+    private final ByteBuffer bits; // Just the bit array, positioned after the header.
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(ByteBuffer bits, long bitCount, int hashCount) {
+        this.bits = bits;
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Memory-maps a filter out of part of a file. Nothing is copied into the heap, so opening
+     * even a large filter is quick, and the OS only pages in the bits we actually look at.
+     *
+     * @param offset Where the filter starts in the file (it might be inside a bigger file, like an APK).
+     * @param length How many bytes it takes up.
+     * @throws IOException If it can't be read or isn't a filter we understand.
+     */
+    public static BloomFilter map(FileChannel channel, long offset, long length) throws IOException {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        return fromBuffer(buffer);
+    }
+
+    /**
+     * Reads a filter from a buffer holding the whole file.
+     *
+     * @throws IOException If it isn't a filter we understand.
+     */
+    public static BloomFilter fromBuffer(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a password bloom filter");
+        }
+        long bitCount = buffer.getLong(8);
+        int hashCount = buffer.getInt(16);
+        if (bitCount <= 0 || hashCount <= 0 || (bitCount + 7) / 8 > buffer.remaining() - HEADER_BYTES) {
+            throw new IOException("Password bloom filter is truncated");
+        }
+        buffer.position(HEADER_BYTES);
+        return new BloomFilter(buffer.slice(), bitCount, hashCount);
+    }
+
+    /**
+     * Whether a password is probably in the list. A false answer is always right.
+     */
+    public boolean mightContain(String password) {
+        return mightContainSha1(sha1(password));
+    }
+
+    /**
+     * The same check, for a password we only have the SHA-1 of.
+     */
+    public boolean mightContainSha1(byte[] sha1) {
+        long h1 = readLong(sha1, 0);
+        long h2 = readLong(sha1, 8) | 1; // Odd, so the probes never collapse onto one bit.
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte[] sha1(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 isn't available", e);
+        }
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Builds a new filter, sized for how many entries it'll hold and how often it's allowed
+     * to give a false alarm.
+     */
+    public static final class Builder {
+        private final byte[] bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        /**
+         * @param expectedEntries   Roughly how many passwords will go in.
+         * @param falsePositiveRate How often a password that isn't in the list may be flagged
+         *                          anyway, e.g. 0.001 for one in a thousand.
+         */
+        public Builder(long expectedEntries, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long wanted = (long) Math.ceil(-Math.max(expectedEntries, 1) * Math.log(falsePositiveRate) / (ln2 * ln2));
+            bitCount = Math.max(64, (wanted + 7) / 8 * 8);
+            if (bitCount / 8 > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Filter would be too big");
+            }
+            hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(expectedEntries, 1) * ln2));
+            bits = new byte[(int) (bitCount / 8)];
+        }
+
+        public Builder add(String password) {
+            return addSha1(sha1(password));
+        }
+
+        public int sizeInBytes() {
+            return bits.length;
+        }
+
+        public int hashCount() {
+            return hashCount;
+        }
+
+        public Builder addSha1(byte[] sha1) {
+            long h1 = readLong(sha1, 0);
+            long h2 = readLong(sha1, 8) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                bits[(int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+            }
+            return this;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeLong(bitCount);
+            data.writeInt(hashCount);
+            data.write(bits);
+            data.flush();
+        }
+
+        /**
+         * The finished filter, without going through a file.
+         */
+        public BloomFilter build() {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bits.length);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(bitCount).putInt(hashCount).put(bits);
+            buffer.flip();
+            try {
+                return fromBuffer(buffer);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.aaa;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the breached-password bloom filter.
+ */
+public class BloomFilterTest {
+
+    @Test
+    public void addedPasswords_areAlwaysFound() {
+        BloomFilter.Builder builder = new BloomFilter.Builder(1000, 0.001);
+        for (int i = 0; i < 1000; i++) {
+            builder.add("password" + i);
+        }
+        BloomFilter filter = builder.build();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("password" + i));
+        }
+    }
+
+    @Test
+    public void otherPasswords_areRarelyFlagged() {
+        BloomFilter.Builder builder = new BloomFilter.Builder(1000, 0.001);
+        for (int i = 0; i < 1000; i++) {
+            builder.add("password" + i);
+        }
+        BloomFilter filter = builder.build();
+        int falseAlarms = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("something-else-" + i)) {
+                falseAlarms++;
+            }
+        }
+        // One in a thousand is expected; allow plenty of slack so this never flakes.
+        assertTrue("Too many false alarms: " + falseAlarms, falseAlarms < 50);
+    }
+
+    @Test
+    public void sha1Entries_matchPlainOnes() {
+        BloomFilter filter = new BloomFilter.Builder(10, 0.001)
+                .addSha1(BloomFilter.sha1("hunter2"))
+                .build();
+        assertTrue(filter.mightContain("hunter2"));
+        assertTrue(filter.mightContainSha1(BloomFilter.sha1("hunter2")));
+    }
+
+    @Test
+    public void writtenFilter_canBeMappedFromTheMiddleOfAFile() throws IOException {
+        File file = File.createTempFile("bloom", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3}); // Something in front, like the rest of an APK.
+            new BloomFilter.Builder(100, 0.001).add("letmein").add("qwerty").writeTo(out);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            BloomFilter filter = BloomFilter.map(channel, 3, file.length() - 3);
+            assertTrue(filter.mightContain("letmein"));
+            assertTrue(filter.mightContain("qwerty"));
+            assertFalse(filter.mightContain("correct horse battery staple"));
+        }
+    }
+
+    @Test
+    public void somethingElse_isRejected() {
+        try {
+            BloomFilter.fromBuffer(ByteBuffer.wrap(new byte[64]));
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            // Good.
+        }
+    }
+}
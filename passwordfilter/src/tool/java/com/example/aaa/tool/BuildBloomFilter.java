@@ -0,0 +1,104 @@
+package com.example.aaa.tool;
+
+import com.example.aaa.BloomFilter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds a breached-password bloom filter from a text file: one password per line, or one
+ * 40-character SHA-1 hex per line. Lines in the Have I Been Pwned download format
+ * ("SHA1:count") work too, the count is just ignored.
+ * <pre>
+ *   BuildBloomFilter input.txt breached_passwords.bloom [false-positive rate]
+ * </pre>
+ * The updateBreachedPasswordFilter task runs this for us, so it never needs running by hand,
+ * and since it's in its own source set it never ends up in the app.
+ */
+public final class BuildBloomFilter {
+
+    private BuildBloomFilter() {
+        // Only run from the command line.
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BuildBloomFilter <input.txt> <output.bloom> [false-positive rate]");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        File output = new File(args[1]);
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 0.001;
+
+        // Two passes: one to count (so the filter is sized right), one to fill it.
+        long count = 0;
+        try (BufferedReader reader = open(input)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    count++;
+                }
+            }
+        }
+
+        BloomFilter.Builder builder = new BloomFilter.Builder(count, rate);
+        try (BufferedReader reader = open(input)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String hash = sha1Prefix(line);
+                if (hash != null) {
+                    builder.addSha1(hexToBytes(hash));
+                } else {
+                    builder.add(line);
+                }
+            }
+        }
+
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Couldn't create " + parent);
+        }
+        try (OutputStream out = new FileOutputStream(output)) {
+            builder.writeTo(out);
+        }
+        System.out.println("Wrote " + count + " entries to " + output + ": " + builder.sizeInBytes()
+                + " bytes, " + builder.hashCount() + " hashes");
+    }
+
+    private static BufferedReader open(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * The SHA-1 hex a line holds, either on its own or followed by ":count", or null if the
+     * line is a plain password.
+     */
+    static String sha1Prefix(String line) {
+        if (line.length() != 40 && !(line.length() > 41 && line.charAt(40) == ':')) {
+            return null;
+        }
+        for (int i = 0; i < 40; i++) {
+            if (Character.digit(line.charAt(i), 16) < 0) {
+                return null;
+            }
+        }
+        return line.substring(0, 40);
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
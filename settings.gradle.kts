@@ -21,3 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "COMP2000-Software-Engineering-2-Assessment-1"
 include(":app")
+include(":benchmark")
+include(":passwordfilter")